@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares throughput and variance of {@link Resampler} implementations.
+ * Variance is mean squared difference between number of copies of a particle
+ * and its expected number of copies, lower means less noise is added by
+ * resampling.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ResamplerBenchmark {
+
+	private static final int[] SIZES = { 10000, 100000, 1000000, 10000000 };
+	private static final int VARIANCE_RUNS = 20;
+
+	public static void main(String[] args) {
+		Resampler[] resamplers = { new SystematicResampler(), new StratifiedResampler(), new ResidualResampler(), new MultinomialResampler(), new WheelResampler() };
+		Random random = new Random(42);
+
+		System.out.println(String.format("%-22s %10s %12s %12s", "resampler", "particles", "ns/particle", "variance"));
+
+		for (int size : SIZES) {
+			double[] weights = new double[size];
+			for (int i = 0; i < size; i++) {
+				weights[i] = Math.exp(3 * random.nextGaussian());
+			}
+			Util.normalize(weights);
+
+			int[] indices = new int[size];
+			int[] copies = new int[size];
+
+			for (Resampler resampler : resamplers) {
+				// warm up
+				for (int i = 0; i < 3; i++) {
+					resampler.resample(weights, size, indices, size, random);
+				}
+
+				int runs = Math.max(3, 20000000 / size);
+				long start = System.nanoTime();
+				for (int i = 0; i < runs; i++) {
+					resampler.resample(weights, size, indices, size, random);
+				}
+				double nanos = (double) (System.nanoTime() - start) / runs / size;
+
+				double variance = 0;
+				for (int run = 0; run < VARIANCE_RUNS; run++) {
+					resampler.resample(weights, size, indices, size, random);
+					Arrays.fill(copies, 0);
+					for (int i = 0; i < size; i++) {
+						copies[indices[i]]++;
+					}
+					for (int i = 0; i < size; i++) {
+						double difference = copies[i] - size * weights[i];
+						variance += difference * difference;
+					}
+				}
+				variance /= (double) VARIANCE_RUNS * size;
+
+				System.out.println(String.format("%-22s %10d %12.2f %12.5f", resampler.getClass().getSimpleName(), size, nanos, variance));
+			}
+		}
+	}
+}
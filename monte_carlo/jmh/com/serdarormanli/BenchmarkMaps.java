@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import math.geom2d.Point2D;
+
+import com.serdarormanli.Settings.Map;
+
+/**
+ * Maps used by benchmarks. Names of settings.xml maps give those maps,
+ * "comb&lt;teeth&gt;" gives a generated comb shaped room whose walls grow
+ * linearly with number of teeth, for measuring behaviour on large maps.
+ * "racks&lt;n&gt;" gives a warehouse of n by n rectangular racks, each a
+ * polygon of its own.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class BenchmarkMaps {
+
+	/** sensor range and noise like those of settings.xml, generated maps do not need it */
+	public static final FilterConfig CONFIG = new FilterConfig(100, 500, 0.5, 5.0, 0.5);
+
+	private static final String COMB = "comb";
+
+	private static final double TOOTH_WIDTH = 20;
+	private static final double COMB_HEIGHT = 400;
+
+	private static final String RACKS = "racks";
+
+	private static final double RACK_PITCH = 20;
+	private static final double RACK_SIZE = 10;
+
+	/**
+	 * Creates room of a map
+	 * 
+	 * @param name
+	 *            name of a map in settings.xml or comb&lt;teeth&gt;
+	 * @return room
+	 */
+	public static Room room(String name) {
+		if (name.startsWith(COMB)) {
+			return new Room(comb(Integer.parseInt(name.substring(COMB.length()))));
+		}
+		if (name.startsWith(RACKS)) {
+			int racks = Integer.parseInt(name.substring(RACKS.length()));
+			return new Room(rectangle(0, 0, (racks + 1) * RACK_PITCH, (racks + 1) * RACK_PITCH), racks(racks), 0);
+		}
+
+		for (Map map : Util.importSettings("settings.xml").getMap()) {
+			if (map.getName().equals(name)) {
+				List<Point2D> corners = new ArrayList<Point2D>();
+				for (Map.Corner corner : map.getCorner()) {
+					corners.add(Util.cornerToPoint(corner));
+				}
+				List<List<Point2D>> polygons = new ArrayList<List<Point2D>>();
+				for (Map.Polygon polygon : map.getPolygon()) {
+					List<Point2D> points = new ArrayList<Point2D>();
+					for (Map.Corner corner : polygon.getCorner()) {
+						points.add(Util.cornerToPoint(corner));
+					}
+					polygons.add(points);
+				}
+				return new Room(corners, polygons, 0);
+			}
+		}
+		throw new IllegalArgumentException("Unknown map: " + name);
+	}
+
+	/**
+	 * Corners of a rectangle whose top wall has narrow teeth hanging down to
+	 * half of its height
+	 * 
+	 * @param teeth
+	 *            number of teeth
+	 * @return corners, 4 per tooth
+	 */
+	public static List<Point2D> comb(int teeth) {
+		double width = (teeth + 1) * TOOTH_WIDTH;
+
+		List<Point2D> corners = new ArrayList<Point2D>();
+		corners.add(new Point2D(0, 0));
+		corners.add(new Point2D(width, 0));
+		corners.add(new Point2D(width, COMB_HEIGHT));
+		for (int t = teeth; t > 0; t--) {
+			double x = t * TOOTH_WIDTH;
+			corners.add(new Point2D(x + TOOTH_WIDTH / 4, COMB_HEIGHT));
+			corners.add(new Point2D(x + TOOTH_WIDTH / 4, COMB_HEIGHT / 2));
+			corners.add(new Point2D(x - TOOTH_WIDTH / 4, COMB_HEIGHT / 2));
+			corners.add(new Point2D(x - TOOTH_WIDTH / 4, COMB_HEIGHT));
+		}
+		corners.add(new Point2D(0, COMB_HEIGHT));
+		return corners;
+	}
+
+	/**
+	 * Racks of a warehouse in a regular grid, aisles between them are as wide
+	 * as racks
+	 * 
+	 * @param racks
+	 *            number of racks along each side
+	 * @return corners of racks, 4 per rack
+	 */
+	public static List<List<Point2D>> racks(int racks) {
+		List<List<Point2D>> polygons = new ArrayList<List<Point2D>>();
+		for (int i = 0; i < racks; i++) {
+			for (int j = 0; j < racks; j++) {
+				double x = RACK_PITCH - RACK_SIZE / 2 + i * RACK_PITCH;
+				double y = RACK_PITCH - RACK_SIZE / 2 + j * RACK_PITCH;
+				polygons.add(rectangle(x, y, x + RACK_SIZE, y + RACK_SIZE));
+			}
+		}
+		return polygons;
+	}
+
+	private static List<Point2D> rectangle(double minX, double minY, double maxX, double maxY) {
+		List<Point2D> corners = new ArrayList<Point2D>();
+		corners.add(new Point2D(minX, minY));
+		corners.add(new Point2D(maxX, minY));
+		corners.add(new Point2D(maxX, maxY));
+		corners.add(new Point2D(minX, maxY));
+		return corners;
+	}
+
+	/**
+	 * Samples uniformly distributed points of free space of room
+	 * 
+	 * @param room
+	 * @param count
+	 *            number of points
+	 * @param seed
+	 * @return x coordinates and y coordinates of points
+	 */
+	public static float[][] freePoints(Room room, int count, long seed) {
+		Random random = new Random(seed);
+		float[] xs = new float[count];
+		float[] ys = new float[count];
+		for (int i = 0; i < count; i++) {
+			room.samplePoint(random, xs, ys, i);
+		}
+		return new float[][] { xs, ys };
+	}
+}
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sensor model of one particle, {@link ParticleFilter#measure(double, double, double, double[])},
+ * at poses in free space of map, for default beams and for scanners of many
+ * beams.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeasureBenchmark {
+
+	private static final int POSES = 4096;
+
+	@Param({ "map1", "map2", "map3", "comb64", "comb1024", "racks16", "racks128" })
+	public String map;
+
+	/** 3 for default beams, otherwise beams of a scanner with 270 degree field of view */
+	@Param({ "3", "180", "1080" })
+	public int beams;
+
+	private ParticleFilter filter;
+	private float[] x, y;
+	private double[] orientation;
+	private double[] reading;
+	private int next;
+
+	@Setup
+	public void setup() {
+		Room room = BenchmarkMaps.room(map);
+		FilterConfig config = BenchmarkMaps.CONFIG.withParticleNum(1);
+		if (beams != BeamSet.DEFAULT.size()) {
+			config = config.withBeams(BeamSet.uniform(beams, Math.toRadians(270)));
+		}
+		filter = new ParticleFilter(room, room, config, 1, 42);
+
+		float[][] points = BenchmarkMaps.freePoints(room, POSES, 42);
+		x = points[0];
+		y = points[1];
+
+		Random random = new Random(42);
+		orientation = new double[POSES];
+		for (int i = 0; i < POSES; i++) {
+			orientation[i] = (random.nextDouble() * 2 - 1) * Math.PI;
+		}
+		reading = new double[beams];
+	}
+
+	@TearDown
+	public void tearDown() {
+		filter.shutdown();
+	}
+
+	@Benchmark
+	public double[] measure() {
+		next = (next + 1) & (POSES - 1);
+		return filter.measure(orientation[next], x[next], y[next], reading);
+	}
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Noise and density functions of {@link Util} called per particle and per
+ * beam, and {@link GaussianSampler} implementations on {@link Random} and on
+ * {@link SplitMixRandom}, one value per call and filling a buffer.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseBenchmark {
+
+	private static final int BUFFER = 4096;
+
+	private final Random random = new Random(42);
+	private final Random splitMix = new SplitMixRandom(42);
+	private final GaussianSampler polar = new PolarGaussianSampler();
+	private final GaussianSampler ziggurat = new ZigguratGaussianSampler();
+	private final double[] buffer = new double[BUFFER];
+	private double x;
+
+	@Benchmark
+	public double getNoiseMathRandom() {
+		return Util.getNoise(null, 1.0);
+	}
+
+	@Benchmark
+	public double getNoiseRandom() {
+		return Util.getNoise(random, 1.0);
+	}
+
+	@Benchmark
+	public double gaussian() {
+		x = x > 5 ? -5 : x + 0.001;
+		return Util.gaussian(0, 1.0, x);
+	}
+
+	@Benchmark
+	public double polarRandom() {
+		return polar.next(random);
+	}
+
+	@Benchmark
+	public double polarSplitMix() {
+		return polar.next(splitMix);
+	}
+
+	@Benchmark
+	public double zigguratRandom() {
+		return ziggurat.next(random);
+	}
+
+	@Benchmark
+	public double zigguratSplitMix() {
+		return ziggurat.next(splitMix);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BUFFER)
+	public double[] zigguratSplitMixFill() {
+		ziggurat.fill(splitMix, buffer, 0, BUFFER);
+		return buffer;
+	}
+}
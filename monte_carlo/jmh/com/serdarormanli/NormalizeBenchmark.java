@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Normalization of weights of a whole population, in linear and in log
+ * space.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizeBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int particles;
+
+	private double[] logWeights;
+	private double[] work;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		logWeights = new double[particles];
+		for (int i = 0; i < particles; i++) {
+			logWeights[i] = 3 * random.nextGaussian();
+		}
+		work = new double[particles];
+		System.arraycopy(logWeights, 0, work, 0, particles);
+		Util.normalizeLog(work);
+	}
+
+	@Benchmark
+	public double[] normalize() {
+		Util.normalize(work, 0, particles);
+		return work;
+	}
+
+	@Benchmark
+	public double[] normalizeLog() {
+		System.arraycopy(logWeights, 0, work, 0, particles);
+		Util.normalizeLog(work, 0, particles);
+		return work;
+	}
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Resampler} implementations over a whole population of skewed
+ * weights.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResampleBenchmark {
+
+	@Param({ "1000", "100000", "1000000" })
+	public int particles;
+
+	@Param({ "systematic", "stratified", "residual", "multinomial", "wheel" })
+	public String resampler;
+
+	private double[] weights;
+	private int[] indices;
+	private Random random;
+	private Resampler implementation;
+
+	@Setup
+	public void setup() {
+		random = new Random(42);
+		weights = new double[particles];
+		for (int i = 0; i < particles; i++) {
+			weights[i] = 3 * random.nextGaussian();
+		}
+		indices = new int[particles];
+		Util.normalizeLog(weights);
+
+		implementation = create(resampler);
+	}
+
+	private static Resampler create(String name) {
+		if (name.equals("systematic")) {
+			return new SystematicResampler();
+		} else if (name.equals("stratified")) {
+			return new StratifiedResampler();
+		} else if (name.equals("residual")) {
+			return new ResidualResampler();
+		} else if (name.equals("multinomial")) {
+			return new MultinomialResampler();
+		} else if (name.equals("wheel")) {
+			return new WheelResampler();
+		}
+		throw new IllegalArgumentException("Unknown resampler: " + name);
+	}
+
+	@Benchmark
+	public int[] resample() {
+		implementation.resample(weights, particles, indices, particles, random);
+		return indices;
+	}
+}
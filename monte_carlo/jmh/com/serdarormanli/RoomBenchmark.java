@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Geometric queries of {@link Room}: point in room tests and wall
+ * intersections of sensor sized segments, at random points of bounding box
+ * of map.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RoomBenchmark {
+
+	private static final int QUERIES = 4096;
+
+	@Param({ "map1", "map2", "map3", "comb64", "comb1024", "racks16", "racks128" })
+	public String map;
+
+	private Room room;
+	private double[] x, y, angle;
+	private int next;
+
+	@Setup
+	public void setup() {
+		room = BenchmarkMaps.room(map);
+
+		Random random = new Random(42);
+		x = new double[QUERIES];
+		y = new double[QUERIES];
+		angle = new double[QUERIES];
+		for (int i = 0; i < QUERIES; i++) {
+			x[i] = room.getMinX() + random.nextDouble() * (room.getMaxX() - room.getMinX());
+			y[i] = room.getMinY() + random.nextDouble() * (room.getMaxY() - room.getMinY());
+			angle[i] = (random.nextDouble() * 2 - 1) * Math.PI;
+		}
+	}
+
+	private int nextQuery() {
+		next = (next + 1) & (QUERIES - 1);
+		return next;
+	}
+
+	@Benchmark
+	public boolean isPointIn() {
+		int i = nextQuery();
+		return room.isPointIn(x[i], y[i]);
+	}
+
+	@Benchmark
+	public double isIntersects() {
+		int i = nextQuery();
+		double range = BenchmarkMaps.CONFIG.getSensorRange();
+		return room.isIntersects(x[i], y[i], x[i] + Math.cos(angle[i]) * range, y[i] + Math.sin(angle[i]) * range);
+	}
+
+	@Benchmark
+	public double castRay() {
+		int i = nextQuery();
+		return room.castRay(x[i], y[i], angle[i], BenchmarkMaps.CONFIG.getSensorRange());
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole filter step and its resampling phase at several particle counts,
+ * maps and numbers of threads.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StepBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int particles;
+
+	@Param({ "map3", "comb1024" })
+	public String map;
+
+	@Param({ "1", "4" })
+	public int threads;
+
+	private ParticleFilter filter;
+	private Odometry odometry;
+	private double[] readings;
+
+	@Setup
+	public void setup() {
+		Room room = BenchmarkMaps.room(map);
+		filter = new ParticleFilter(room, room, BenchmarkMaps.CONFIG.withParticleNum(particles), threads, 42);
+
+		float[][] pose = BenchmarkMaps.freePoints(room, 1, 7);
+		readings = filter.measure(0, pose[0][0], pose[1][0]);
+		odometry = new Odometry(0.05, 2);
+	}
+
+	@TearDown
+	public void tearDown() {
+		filter.shutdown();
+	}
+
+	@Benchmark
+	public ParticleSet step() {
+		filter.step(odometry, readings);
+		return filter.getParticles();
+	}
+
+	@Benchmark
+	public ParticleSet generateNewParticles() {
+		filter.generateNewParticles();
+		return filter.getParticles();
+	}
+}
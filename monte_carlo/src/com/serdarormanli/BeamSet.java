@@ -0,0 +1,166 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+
+/**
+ * Directions of beams of a range sensor relative to heading of robot.
+ * Cosine and sine of every beam are computed once, so direction of a beam
+ * for any heading is a rotation by cosine and sine of heading, two
+ * multiplications and an addition per component instead of trigonometry per
+ * beam.
+ * <p>
+ * Beam sets are immutable, so they can be shared by configurations, filters
+ * and threads.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public final class BeamSet {
+
+	/**
+	 * Three beams to left, front and right, beams of original sensor
+	 */
+	public static final BeamSet DEFAULT = new BeamSet(new double[] { -1.57079633, 0, 1.57079633 });
+
+	private final double[] angles;
+	private final double[] cos;
+	private final double[] sin;
+
+	/**
+	 * @param angles
+	 *            directions of beams in radians relative to heading, array
+	 *            is copied
+	 */
+	public BeamSet(double[] angles) {
+		if (angles.length == 0) {
+			throw new IllegalArgumentException("Beam set has no beams.");
+		}
+
+		this.angles = angles.clone();
+		this.cos = new double[angles.length];
+		this.sin = new double[angles.length];
+		for (int i = 0; i < angles.length; i++) {
+			cos[i] = Math.cos(angles[i]);
+			sin[i] = Math.sin(angles[i]);
+		}
+	}
+
+	/**
+	 * Creates evenly spaced beams centered on heading, like beams of a
+	 * scanning laser range finder
+	 * 
+	 * @param beams
+	 *            number of beams
+	 * @param fieldOfView
+	 *            angle between first and last beam in radians, beams of a
+	 *            full circle are one spacing apart from first beam
+	 * @return beam set
+	 */
+	public static BeamSet uniform(int beams, double fieldOfView) {
+		if (beams < 1) {
+			throw new IllegalArgumentException("Number of beams must be positive.");
+		}
+		if (!(fieldOfView >= 0 && fieldOfView <= 2 * Math.PI)) {
+			throw new IllegalArgumentException("Field of view must be between 0 and 2 pi.");
+		}
+
+		double[] angles = new double[beams];
+		if (beams > 1) {
+			boolean fullCircle = fieldOfView >= 2 * Math.PI;
+			double spacing = fieldOfView / (fullCircle ? beams : beams - 1);
+			for (int i = 0; i < beams; i++) {
+				angles[i] = -fieldOfView / 2 + i * spacing;
+			}
+		}
+		return new BeamSet(angles);
+	}
+
+	/**
+	 * @return number of beams
+	 */
+	public int size() {
+		return angles.length;
+	}
+
+	/**
+	 * @param beam
+	 * @return direction of beam relative to heading
+	 */
+	public double getAngle(int beam) {
+		return angles[beam];
+	}
+
+	/**
+	 * @param beam
+	 * @return cosine of direction of beam
+	 */
+	public double getCos(int beam) {
+		return cos[beam];
+	}
+
+	/**
+	 * @param beam
+	 * @return sine of direction of beam
+	 */
+	public double getSin(int beam) {
+		return sin[beam];
+	}
+
+	/**
+	 * @return copy of directions of beams
+	 */
+	public double[] getAngles() {
+		return angles.clone();
+	}
+
+	/**
+	 * Stride of subsampling beams, every stride'th beam starting with first
+	 * one is used
+	 * 
+	 * @param maxBeams
+	 *            largest number of beams used, 0 for every beam
+	 * @return stride, 1 if every beam is used
+	 */
+	public int stride(int maxBeams) {
+		if (maxBeams <= 0 || maxBeams >= angles.length) {
+			return 1;
+		}
+		return (angles.length + maxBeams - 1) / maxBeams;
+	}
+
+	/**
+	 * @param maxBeams
+	 *            largest number of beams used, 0 for every beam
+	 * @return number of beams used with subsampling
+	 */
+	public int subsampled(int maxBeams) {
+		int stride = stride(maxBeams);
+		return (angles.length + stride - 1) / stride;
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof BeamSet && Arrays.equals(angles, ((BeamSet) obj).angles);
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(angles);
+	}
+}
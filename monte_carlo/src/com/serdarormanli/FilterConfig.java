@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * Immutable settings of a {@link ParticleFilter}. A filter reads its
+ * configuration once per step, so a new configuration given to a running
+ * filter takes effect from next step on.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public final class FilterConfig {
+
+	private final double sensorRange;
+	private final int particleNum;
+	private final double orientationNoise;
+	private final double moveNoise;
+	private final double sensorNoise;
+	private final double resampleThreshold;
+	private final BeamSet beams;
+	private final int weightBeams;
+
+	/**
+	 * Creates configuration resampling at every step
+	 * @param sensorRange
+	 *            range of sensor beams
+	 * @param particleNum
+	 *            number of particles, initial number with KLD-sampling
+	 * @param orientationNoise
+	 *            standard deviation of rotation of a step
+	 * @param moveNoise
+	 *            standard deviation of distance of a step
+	 * @param sensorNoise
+	 *            standard deviation of a reading
+	 */
+	public FilterConfig(double sensorRange, int particleNum, double orientationNoise, double moveNoise, double sensorNoise) {
+		this(sensorRange, particleNum, orientationNoise, moveNoise, sensorNoise, 1);
+	}
+
+	/**
+	 * @param sensorRange
+	 *            range of sensor beams
+	 * @param particleNum
+	 *            number of particles, initial number with KLD-sampling
+	 * @param orientationNoise
+	 *            standard deviation of rotation of a step
+	 * @param moveNoise
+	 *            standard deviation of distance of a step
+	 * @param sensorNoise
+	 *            standard deviation of a reading
+	 * @param resampleThreshold
+	 *            particles are resampled when effective sample size falls
+	 *            below this share of number of particles, 1 for resampling
+	 *            at every step
+	 */
+	public FilterConfig(double sensorRange, int particleNum, double orientationNoise, double moveNoise, double sensorNoise, double resampleThreshold) {
+		this(sensorRange, particleNum, orientationNoise, moveNoise, sensorNoise, resampleThreshold, BeamSet.DEFAULT, 0);
+	}
+
+	private FilterConfig(double sensorRange, int particleNum, double orientationNoise, double moveNoise, double sensorNoise, double resampleThreshold, BeamSet beams, int weightBeams) {
+		if (!(sensorRange > 0)) {
+			throw new IllegalArgumentException("Sensor range must be positive.");
+		}
+		if (particleNum < 1) {
+			throw new IllegalArgumentException("Number of particles must be positive.");
+		}
+		if (!(orientationNoise >= 0 && moveNoise >= 0 && sensorNoise >= 0)) {
+			throw new IllegalArgumentException("Noise can not be negative.");
+		}
+		if (!(resampleThreshold >= 0 && resampleThreshold <= 1)) {
+			throw new IllegalArgumentException("Resample threshold must be between 0 and 1.");
+		}
+		if (beams == null) {
+			throw new IllegalArgumentException("Beam set is missing.");
+		}
+		if (weightBeams < 0) {
+			throw new IllegalArgumentException("Number of weighted beams can not be negative.");
+		}
+
+		this.sensorRange = sensorRange;
+		this.particleNum = particleNum;
+		this.orientationNoise = orientationNoise;
+		this.moveNoise = moveNoise;
+		this.sensorNoise = sensorNoise;
+		this.resampleThreshold = resampleThreshold;
+		this.beams = beams;
+		this.weightBeams = weightBeams;
+	}
+
+	/**
+	 * Creates configuration from settings.xml
+	 * 
+	 * @param settings
+	 * @return configuration
+	 */
+	public static FilterConfig fromSettings(Settings settings) {
+		double resampleThreshold = settings.getResamplethreshold() == null ? 1 : settings.getResamplethreshold().doubleValue();
+		BeamSet beams = BeamSet.DEFAULT;
+		if (settings.getBeams() != null) {
+			double fieldOfView = settings.getFieldofview() == null ? 2 * Math.PI : Math.toRadians(settings.getFieldofview().doubleValue());
+			beams = BeamSet.uniform(settings.getBeams().intValue(), fieldOfView);
+		}
+		int weightBeams = settings.getWeightbeams() == null ? 0 : settings.getWeightbeams().intValue();
+		return new FilterConfig(settings.getSensorrange(), settings.getNumofparticles(), settings.getOrientationnoise(), settings.getMovenoise(), settings.getSensornoise(), resampleThreshold, beams, weightBeams);
+	}
+
+	/**
+	 * @param particleNum
+	 * @return copy of configuration with another number of particles
+	 */
+	public FilterConfig withParticleNum(int particleNum) {
+		return new FilterConfig(sensorRange, particleNum, orientationNoise, moveNoise, sensorNoise, resampleThreshold, beams, weightBeams);
+	}
+
+	/**
+	 * @param orientationNoise
+	 * @param moveNoise
+	 * @param sensorNoise
+	 * @return copy of configuration with other noise
+	 */
+	public FilterConfig withNoise(double orientationNoise, double moveNoise, double sensorNoise) {
+		return new FilterConfig(sensorRange, particleNum, orientationNoise, moveNoise, sensorNoise, resampleThreshold, beams, weightBeams);
+	}
+
+	/**
+	 * @param resampleThreshold
+	 * @return copy of configuration with another resample threshold
+	 */
+	public FilterConfig withResampleThreshold(double resampleThreshold) {
+		return new FilterConfig(sensorRange, particleNum, orientationNoise, moveNoise, sensorNoise, resampleThreshold, beams, weightBeams);
+	}
+
+	/**
+	 * @param beams
+	 *            beams of sensor, readings are given in their order
+	 * @return copy of configuration with other beams
+	 */
+	public FilterConfig withBeams(BeamSet beams) {
+		return new FilterConfig(sensorRange, particleNum, orientationNoise, moveNoise, sensorNoise, resampleThreshold, beams, weightBeams);
+	}
+
+	/**
+	 * @param weightBeams
+	 *            largest number of beams particles are weighted with, 0 for
+	 *            every beam
+	 * @return copy of configuration with other subsampling of beams
+	 */
+	public FilterConfig withWeightBeams(int weightBeams) {
+		return new FilterConfig(sensorRange, particleNum, orientationNoise, moveNoise, sensorNoise, resampleThreshold, beams, weightBeams);
+	}
+
+	/**
+	 * @return range of sensor beams
+	 */
+	public double getSensorRange() {
+		return sensorRange;
+	}
+
+	/**
+	 * @return number of particles
+	 */
+	public int getParticleNum() {
+		return particleNum;
+	}
+
+	/**
+	 * @return standard deviation of rotation of a step
+	 */
+	public double getOrientationNoise() {
+		return orientationNoise;
+	}
+
+	/**
+	 * @return standard deviation of distance of a step
+	 */
+	public double getMoveNoise() {
+		return moveNoise;
+	}
+
+	/**
+	 * @return standard deviation of a reading
+	 */
+	public double getSensorNoise() {
+		return sensorNoise;
+	}
+
+	/**
+	 * @return share of number of particles effective sample size has to fall
+	 *         below for resampling, 1 if particles are resampled at every
+	 *         step
+	 */
+	public double getResampleThreshold() {
+		return resampleThreshold;
+	}
+
+	/**
+	 * @return beams of sensor
+	 */
+	public BeamSet getBeams() {
+		return beams;
+	}
+
+	/**
+	 * @return largest number of beams particles are weighted with, 0 if
+	 *         every beam is used
+	 */
+	public int getWeightBeams() {
+		return weightBeams;
+	}
+}
@@ -0,0 +1,406 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hosts many independent filters over one map in a single JVM. Map and ray
+ * caster are immutable and shared, every filter keeps only its particles and
+ * buffers.
+ * <p>
+ * Steps submitted to a filter are queued and run on a shared pool of
+ * threads. A filter runs on one thread at a time for at most a time slice,
+ * then goes back to end of run queue if it has more steps, so a busy filter
+ * can not starve others. Hosted filters are single threaded, parallelism
+ * comes from running many filters at once. A step which throws is dropped
+ * and its exception is kept by its filter, following steps still run.
+ * <p>
+ * Memory of a filter is checked against memory limit of host when it is
+ * added, and again after every slice since KLD-sampling can grow it. A
+ * filter which grows beyond limit is removed with its queued steps.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class FilterHost {
+
+	private final Room room;
+	private final RayCaster rayCaster;
+	private final ExecutorService executor;
+	private final long sliceNanos;
+	private final long memoryLimit;
+	private volatile LikelihoodField likelihoodField;
+
+	private final Set<Instance> instances = Collections.newSetFromMap(new ConcurrentHashMap<Instance, Boolean>());
+
+	/**
+	 * @param room
+	 *            map shared by filters
+	 * @param rayCaster
+	 *            ray caster shared by filters
+	 * @param threads
+	 *            number of threads stepping filters
+	 * @param sliceNanos
+	 *            longest time a filter runs before others get their turn
+	 * @param memoryLimit
+	 *            bytes filters may hold in total, filters are not added
+	 *            beyond it
+	 */
+	public FilterHost(Room room, RayCaster rayCaster, int threads, long sliceNanos, long memoryLimit) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive.");
+		}
+
+		this.room = room;
+		this.rayCaster = rayCaster;
+		this.executor = Executors.newFixedThreadPool(threads);
+		this.sliceNanos = sliceNanos;
+		this.memoryLimit = memoryLimit;
+	}
+
+	/**
+	 * Changes configuration of every hosted filter from its next step on
+	 * 
+	 * @param config
+	 * @throws IllegalArgumentException
+	 *             if rays of sensor range are longer than range of ray
+	 *             caster of host
+	 */
+	public void setConfig(FilterConfig config) {
+		ParticleFilter.checkRange(rayCaster, config);
+		for (Instance instance : instances) {
+			instance.setConfig(config);
+		}
+	}
+
+	/**
+	 * Changes sensor model of every hosted filter and of filters added later
+	 * from their next step on. Like map, field is shared by filters
+	 * 
+	 * @param likelihoodField
+	 *            {@link LikelihoodField} of map, null for ray casting
+	 */
+	public void setLikelihoodField(LikelihoodField likelihoodField) {
+		this.likelihoodField = likelihoodField;
+		for (Instance instance : instances) {
+			instance.filter.setLikelihoodField(likelihoodField);
+		}
+	}
+
+	/**
+	 * Adds a filter
+	 * 
+	 * @param config
+	 *            sensor range, number of particles and noise of filter
+	 * @param seed
+	 *            seed of all random draws of filter
+	 * @param kldSampler
+	 *            KLD-sampling of filter, null for fixed number of particles.
+	 *            Filter gets its own copy, so one sampler can be given to
+	 *            many filters
+	 * @return handle of filter
+	 * @throws IllegalStateException
+	 *             if filter would exceed memory limit of host
+	 */
+	public Instance add(FilterConfig config, long seed, KldSampler kldSampler) {
+		ParticleFilter filter = new ParticleFilter(room, rayCaster, config, 1, seed);
+		filter.setKldSampler(kldSampler == null ? null : kldSampler.copy());
+		filter.setLikelihoodField(likelihoodField);
+
+		Instance instance = new Instance(filter);
+		synchronized (instances) {
+			if (getMemoryUsage() + instance.getMemoryUsage() > memoryLimit) {
+				throw new IllegalStateException("Memory limit of host is exceeded.");
+			}
+			instances.add(instance);
+		}
+		return instance;
+	}
+
+	/**
+	 * Removes a filter, its queued steps are dropped
+	 * 
+	 * @param instance
+	 */
+	public void remove(Instance instance) {
+		synchronized (instances) {
+			instances.remove(instance);
+		}
+		instance.pending.clear();
+	}
+
+	/**
+	 * @return number of hosted filters
+	 */
+	public int size() {
+		return instances.size();
+	}
+
+	/**
+	 * @return bytes held by all filters
+	 */
+	public long getMemoryUsage() {
+		long bytes = 0;
+		for (Instance instance : instances) {
+			bytes += instance.getMemoryUsage();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Stops threads, waiting for running slices. Steps still queued are
+	 * dropped, steps can not be submitted anymore
+	 * 
+	 * @throws InterruptedException
+	 */
+	public void shutdown() throws InterruptedException {
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Input of a step
+	 */
+	private static class Step {
+		final Odometry odometry;
+		final double[] readings;
+
+		Step(Odometry odometry, double[] readings) {
+			this.odometry = odometry;
+			this.readings = readings;
+		}
+	}
+
+	/**
+	 * A hosted filter. Steps are submitted from any thread, estimates are
+	 * published after every step
+	 */
+	public class Instance implements Runnable {
+
+		private final ParticleFilter filter;
+		private final Queue<Step> pending = new ConcurrentLinkedQueue<Step>();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		private volatile long steps;
+		private volatile long failures;
+		private volatile RuntimeException failure;
+		private volatile long busyNanos;
+		private volatile long memoryUsage;
+		private volatile float bestX, bestY;
+		private volatile double bestWeight;
+		private volatile PoseEstimate estimate;
+
+		Instance(ParticleFilter filter) {
+			this.filter = filter;
+			this.memoryUsage = filter.getMemoryUsage();
+		}
+
+		/**
+		 * Queues a step
+		 * 
+		 * @param odometry
+		 *            motion of robot since last step
+		 * @param readings
+		 *            sensor readings of robot, not modified until step runs
+		 * @throws IllegalStateException
+		 *             if host is shut down
+		 */
+		public void submit(Odometry odometry, double[] readings) {
+			if (executor.isShutdown()) {
+				throw new IllegalStateException("Host is shut down.");
+			}
+			pending.add(new Step(odometry, readings));
+			if (!schedule()) {
+				throw new IllegalStateException("Host is shut down.");
+			}
+		}
+
+		/**
+		 * Runs filter on pool if it has queued steps and is not running
+		 * 
+		 * @return false if host is shut down, queued steps are dropped then
+		 */
+		private boolean schedule() {
+			if (!pending.isEmpty() && instances.contains(this) && scheduled.compareAndSet(false, true)) {
+				try {
+					executor.execute(this);
+				} catch (RejectedExecutionException e) {
+					scheduled.set(false);
+					pending.clear();
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Runs queued steps for a time slice
+		 * 
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			long now = start;
+			try {
+				Step step;
+				while (now - start < sliceNanos && (step = pending.poll()) != null) {
+					try {
+						filter.step(step.odometry, step.readings);
+						bestX = filter.getBestX();
+						bestY = filter.getBestY();
+						bestWeight = filter.getBestWeight();
+						estimate = filter.getEstimate();
+						steps++;
+					} catch (RuntimeException e) {
+						failure = e;
+						failures++;
+					}
+					now = System.nanoTime();
+				}
+			} finally {
+				busyNanos += System.nanoTime() - start;
+				updateMemoryUsage();
+				scheduled.set(false);
+				schedule();
+			}
+		}
+
+		/**
+		 * Reads memory of filter after a slice, removes filter if it grew
+		 * beyond memory limit of host
+		 */
+		private void updateMemoryUsage() {
+			long usage = filter.getMemoryUsage();
+			if (usage <= memoryUsage) {
+				memoryUsage = usage;
+				return;
+			}
+
+			synchronized (instances) {
+				memoryUsage = usage;
+				if (instances.contains(this) && FilterHost.this.getMemoryUsage() > memoryLimit) {
+					instances.remove(this);
+					pending.clear();
+					failure = new IllegalStateException("Memory limit of host is exceeded.");
+				}
+			}
+		}
+
+		/**
+		 * Changes configuration of filter from its next step on
+		 * 
+		 * @param config
+		 */
+		public void setConfig(FilterConfig config) {
+			filter.setConfig(config);
+		}
+
+		/**
+		 * Instruments filter from its next step on
+		 * 
+		 * @param metrics
+		 *            {@link FilterMetrics} of filter, null for no
+		 *            instrumentation
+		 */
+		public void setMetrics(FilterMetrics metrics) {
+			filter.setMetrics(metrics);
+		}
+
+		/**
+		 * @return true until filter is removed from host
+		 */
+		public boolean isHosted() {
+			return instances.contains(this);
+		}
+
+		/**
+		 * @return number of queued steps
+		 */
+		public int getPending() {
+			return pending.size();
+		}
+
+		/**
+		 * @return number of steps run successfully
+		 */
+		public long getSteps() {
+			return steps;
+		}
+
+		/**
+		 * @return number of steps which threw an exception and were dropped
+		 */
+		public long getFailures() {
+			return failures;
+		}
+
+		/**
+		 * @return exception of last dropped step, or of removal of filter for
+		 *         exceeding memory limit of host, null if nothing failed
+		 */
+		public RuntimeException getFailure() {
+			return failure;
+		}
+
+		/**
+		 * @return wall clock nanoseconds spent in slices of filter
+		 */
+		public long getBusyNanos() {
+			return busyNanos;
+		}
+
+		/**
+		 * @return bytes held by filter after its last slice
+		 */
+		public long getMemoryUsage() {
+			return memoryUsage;
+		}
+
+		/**
+		 * @return x of heaviest particle after last step
+		 */
+		public float getBestX() {
+			return bestX;
+		}
+
+		/**
+		 * @return y of heaviest particle after last step
+		 */
+		public float getBestY() {
+			return bestY;
+		}
+
+		/**
+		 * @return weight of heaviest particle after last step
+		 */
+		public double getBestWeight() {
+			return bestWeight;
+		}
+
+		/**
+		 * @return pose estimate of last step, null before first step
+		 */
+		public PoseEstimate getEstimate() {
+			return estimate;
+		}
+	}
+}
@@ -0,0 +1,342 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.text.DecimalFormat;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Latencies of phases of {@link ParticleFilter} steps kept in
+ * {@link LatencyHistogram}s, with counters of respawned particles and
+ * effective sample size. A filter without metrics does not read the clock,
+ * so instrumentation costs nothing unless it is enabled with
+ * {@link ParticleFilter#setMetrics(FilterMetrics)}.
+ * <p>
+ * Motion, ray cast and weighting run per block of particles, their latency
+ * is the sum over blocks, so with several threads it is time of all workers
+ * rather than wall time. Render is recorded by viewer.
+ * <p>
+ * Metrics can be read from JMX after {@link #register(String)} and printed
+ * periodically with {@link #startDump(PrintStream, long)}. Methods are
+ * synchronized, recording is a few times per step.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class FilterMetrics implements FilterMetricsMBean {
+
+	public static final int MOTION = 0;
+	public static final int RAY_CAST = 1;
+	public static final int WEIGHTING = 2;
+	public static final int NORMALIZE = 3;
+	public static final int RESAMPLE = 4;
+	public static final int RENDER = 5;
+	public static final int ESTIMATE = 6;
+
+	private static final String[] PHASES = { "motion", "raycast", "weighting", "normalize", "resample", "render", "estimate" };
+
+	private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+
+	private long steps;
+	private long respawned;
+	private long resamples;
+	private double ess = Double.NaN;
+	private double minEss = Double.NaN;
+
+	private ObjectName objectName;
+	private ScheduledExecutorService dumper;
+
+	public FilterMetrics() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Records latency of a phase
+	 * 
+	 * @param phase
+	 *            one of {@link #MOTION}, {@link #RAY_CAST}, {@link #WEIGHTING},
+	 *            {@link #NORMALIZE}, {@link #RESAMPLE}, {@link #RENDER},
+	 *            {@link #ESTIMATE}
+	 * @param nanos
+	 *            latency in nanoseconds
+	 */
+	public synchronized void record(int phase, long nanos) {
+		histograms[phase].record(nanos);
+	}
+
+	/**
+	 * Records counters of a step
+	 * 
+	 * @param respawned
+	 *            number of particles moved out of map and sampled again
+	 * @param ess
+	 *            effective sample size of normalized weights
+	 * @param resampled
+	 *            true if particles were resampled
+	 */
+	public synchronized void recordStep(int respawned, double ess, boolean resampled) {
+		this.steps++;
+		this.respawned += respawned;
+		if (resampled) {
+			this.resamples++;
+		}
+		this.ess = ess;
+		this.minEss = Double.isNaN(minEss) ? ess : Math.min(minEss, ess);
+	}
+
+	/**
+	 * Effective sample size of normalized weights, 1 / sum of squared
+	 * weights. Equals number of particles for uniform weights and 1 when a
+	 * single particle holds all weight
+	 * 
+	 * @param weights
+	 *            normalized weights
+	 * @param from
+	 *            first index of range
+	 * @param to
+	 *            index after last index of range
+	 * @return effective sample size
+	 */
+	public static double effectiveSampleSize(double[] weights, int from, int to) {
+		double squares = 0;
+		for (int i = from; i < to; i++) {
+			squares += weights[i] * weights[i];
+		}
+		return squares == 0 ? 0 : 1 / squares;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getPhases()
+	 */
+	@Override
+	public String[] getPhases() {
+		return PHASES.clone();
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getMeanMicros()
+	 */
+	@Override
+	public synchronized double[] getMeanMicros() {
+		double[] result = new double[PHASES.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = histograms[i].getMean() / 1000;
+		}
+		return result;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getP50Micros()
+	 */
+	@Override
+	public double[] getP50Micros() {
+		return percentilesMicros(50);
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getP99Micros()
+	 */
+	@Override
+	public double[] getP99Micros() {
+		return percentilesMicros(99);
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getMaxMicros()
+	 */
+	@Override
+	public synchronized double[] getMaxMicros() {
+		double[] result = new double[PHASES.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = histograms[i].getMax() / 1000.0;
+		}
+		return result;
+	}
+
+	private synchronized double[] percentilesMicros(double percentile) {
+		double[] result = new double[PHASES.length];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = histograms[i].getValueAtPercentile(percentile) / 1000.0;
+		}
+		return result;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getSteps()
+	 */
+	@Override
+	public synchronized long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getRespawnedParticles()
+	 */
+	@Override
+	public synchronized long getRespawnedParticles() {
+		return respawned;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getResamples()
+	 */
+	@Override
+	public synchronized long getResamples() {
+		return resamples;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getEffectiveSampleSize()
+	 */
+	@Override
+	public synchronized double getEffectiveSampleSize() {
+		return ess;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#getMinEffectiveSampleSize()
+	 */
+	@Override
+	public synchronized double getMinEffectiveSampleSize() {
+		return minEss;
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#percentileMicros(java.lang.String,
+	 *      double)
+	 */
+	@Override
+	public synchronized double percentileMicros(String phase, double percentile) {
+		for (int i = 0; i < PHASES.length; i++) {
+			if (PHASES[i].equals(phase)) {
+				return histograms[i].getValueAtPercentile(percentile) / 1000.0;
+			}
+		}
+		throw new IllegalArgumentException("Unknown phase: " + phase);
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#summary()
+	 */
+	@Override
+	public synchronized String summary() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(String.format("%-10s %10s %10s %10s %10s %10s %10s%n", "phase (us)", "count", "mean", "p50", "p90", "p99", "max"));
+		for (int i = 0; i < PHASES.length; i++) {
+			LatencyHistogram histogram = histograms[i];
+			builder.append(String.format("%-10s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", PHASES[i], histogram.getCount(), histogram.getMean() / 1000, histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+					histogram.getValueAtPercentile(99) / 1000.0, histogram.getMax() / 1000.0));
+		}
+		// summary is printed from dumper thread, shared Util.df is not thread safe
+		DecimalFormat df = new DecimalFormat("#.#####");
+		builder.append("steps ").append(steps).append(", resampled ").append(resamples).append(", respawned ").append(respawned).append(", ESS ").append(df.format(ess)).append(", min ESS ").append(df.format(minEss));
+		return builder.toString();
+	}
+
+	/**
+	 * @see com.serdarormanli.FilterMetricsMBean#reset()
+	 */
+	@Override
+	public synchronized void reset() {
+		for (int i = 0; i < histograms.length; i++) {
+			histograms[i].reset();
+		}
+		steps = 0;
+		respawned = 0;
+		resamples = 0;
+		ess = Double.NaN;
+		minEss = Double.NaN;
+	}
+
+	/**
+	 * Prints {@link #summary()}
+	 * 
+	 * @param out
+	 */
+	public void dump(PrintStream out) {
+		out.println(summary());
+	}
+
+	/**
+	 * Prints summary periodically from a daemon thread until
+	 * {@link #stopDump()}
+	 * 
+	 * @param out
+	 * @param periodMillis
+	 *            milliseconds between prints
+	 */
+	public synchronized void startDump(final PrintStream out, long periodMillis) {
+		stopDump();
+		dumper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "filter-metrics");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		dumper.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				dump(out);
+			}
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops periodic printing
+	 */
+	public synchronized void stopDump() {
+		if (dumper != null) {
+			dumper.shutdown();
+			dumper = null;
+		}
+	}
+
+	/**
+	 * Registers metrics to platform MBean server
+	 * 
+	 * @param name
+	 *            name key of object name, several filters of a process need
+	 *            different names
+	 * @throws JMException
+	 */
+	public synchronized void register(String name) throws JMException {
+		unregister();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName objectName = new ObjectName("com.serdarormanli:type=FilterMetrics,name=" + ObjectName.quote(name));
+		server.registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Removes metrics from platform MBean server if registered
+	 * 
+	 * @throws JMException
+	 */
+	public synchronized void unregister() throws JMException {
+		if (objectName != null) {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			objectName = null;
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * JMX view of {@link FilterMetrics}. Latencies are in microseconds
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public interface FilterMetricsMBean {
+
+	/**
+	 * @return names of phases, in order of other arrays
+	 */
+	String[] getPhases();
+
+	/**
+	 * @return mean latency of every phase
+	 */
+	double[] getMeanMicros();
+
+	/**
+	 * @return median latency of every phase
+	 */
+	double[] getP50Micros();
+
+	/**
+	 * @return 99th percentile latency of every phase
+	 */
+	double[] getP99Micros();
+
+	/**
+	 * @return largest latency of every phase
+	 */
+	double[] getMaxMicros();
+
+	/**
+	 * @return number of recorded steps
+	 */
+	long getSteps();
+
+	/**
+	 * @return number of particles moved out of map and sampled again
+	 */
+	long getRespawnedParticles();
+
+	/**
+	 * @return number of steps which resampled particles
+	 */
+	long getResamples();
+
+	/**
+	 * @return effective sample size of last step
+	 */
+	double getEffectiveSampleSize();
+
+	/**
+	 * @return smallest effective sample size since reset
+	 */
+	double getMinEffectiveSampleSize();
+
+	/**
+	 * @param phase
+	 *            name of phase
+	 * @param percentile
+	 *            between 0 and 100
+	 * @return latency at percentile
+	 */
+	double percentileMicros(String phase, double percentile);
+
+	/**
+	 * @return table of latencies and counters
+	 */
+	String summary();
+
+	/**
+	 * Forgets recorded latencies and counters
+	 */
+	void reset();
+}
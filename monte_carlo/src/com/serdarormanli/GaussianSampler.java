@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Draws normally distributed noise. Filter takes its noise from a sampler so
+ * generation method can be changed without touching motion and sensor
+ * models.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public interface GaussianSampler {
+
+	/**
+	 * Draws a standard normal value
+	 * 
+	 * @param random
+	 *            generator to draw from
+	 * @return noise with zero mean and unit standard deviation
+	 */
+	double next(Random random);
+
+	/**
+	 * Draws standard normal values into a buffer
+	 * 
+	 * @param random
+	 *            generator to draw from
+	 * @param buffer
+	 *            array values are written into
+	 * @param offset
+	 *            index of first value in buffer
+	 * @param length
+	 *            number of values
+	 */
+	void fill(Random random, double[] buffer, int offset, int length);
+}
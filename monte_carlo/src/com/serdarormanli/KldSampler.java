@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+
+/**
+ * KLD-sampling. Number of particles is chosen so that, with probability
+ * given by z, error between sampled and true posterior stays below epsilon
+ * in Kullback-Leibler distance. Required number grows with number of
+ * (x, y, orientation) bins holding particles, so a spread out belief gets
+ * many particles and a converged belief few.
+ * <p>
+ * Occupied bins are marked in a bitmap over bounds of room, counting does not
+ * allocate. Bitmap is overwritten by every count, so a sampler belongs to a
+ * single filter, {@link #copy()} gives another filter its own.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class KldSampler {
+
+	private final int minParticles;
+	private final int maxParticles;
+	private final double epsilon;
+	private final double z;
+
+	private final double originX, originY, binSize;
+	private final int columns, rows, angleBins;
+	private final long[] occupied;
+
+	/**
+	 * @param room
+	 *            {@link Room} particles are in
+	 * @param minParticles
+	 *            lower bound of number of particles
+	 * @param maxParticles
+	 *            upper bound of number of particles
+	 * @param epsilon
+	 *            allowed Kullback-Leibler distance
+	 * @param z
+	 *            upper standard normal quantile of wanted confidence, 2.326
+	 *            for 99%
+	 * @param binSize
+	 *            size of a square position bin
+	 * @param angleBins
+	 *            number of orientation bins in full circle
+	 */
+	public KldSampler(Room room, int minParticles, int maxParticles, double epsilon, double z, double binSize, int angleBins) {
+		if (minParticles < 1 || maxParticles < minParticles) {
+			throw new IllegalArgumentException("Bounds of number of particles are not valid.");
+		}
+
+		this.minParticles = minParticles;
+		this.maxParticles = maxParticles;
+		this.epsilon = epsilon;
+		this.z = z;
+		this.originX = room.getMinX();
+		this.originY = room.getMinY();
+		this.binSize = binSize;
+		this.columns = (int) ((room.getMaxX() - originX) / binSize) + 1;
+		this.rows = (int) ((room.getMaxY() - originY) / binSize) + 1;
+		this.angleBins = angleBins;
+
+		long bins = (long) columns * rows * angleBins;
+		if (bins > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Bin size is too small for room.");
+		}
+		this.occupied = new long[(int) ((bins + 63) >>> 6)];
+	}
+
+	private KldSampler(KldSampler other) {
+		this.minParticles = other.minParticles;
+		this.maxParticles = other.maxParticles;
+		this.epsilon = other.epsilon;
+		this.z = other.z;
+		this.originX = other.originX;
+		this.originY = other.originY;
+		this.binSize = other.binSize;
+		this.columns = other.columns;
+		this.rows = other.rows;
+		this.angleBins = other.angleBins;
+		this.occupied = new long[other.occupied.length];
+	}
+
+	/**
+	 * @return sampler of same bounds and bins with its own bitmap
+	 */
+	public KldSampler copy() {
+		return new KldSampler(this);
+	}
+
+	/**
+	 * Counts bins holding picked particles and computes number of particles
+	 * 
+	 * @param particles
+	 *            {@link ParticleSet} particles are picked from
+	 * @param indices
+	 *            indices of picked particles
+	 * @param count
+	 *            number of picked particles
+	 * @return number of particles of next generation
+	 */
+	public int particleCount(ParticleSet particles, int[] indices, int count) {
+		float[] xs = particles.getX();
+		float[] ys = particles.getY();
+		float[] orientations = particles.getOrientation();
+
+		Arrays.fill(occupied, 0);
+		int k = 0;
+
+		for (int i = 0; i < count; i++) {
+			int p = indices[i];
+			int column = Math.max(0, Math.min(columns - 1, (int) ((xs[p] - originX) / binSize)));
+			int row = Math.max(0, Math.min(rows - 1, (int) ((ys[p] - originY) / binSize)));
+			int angle = (int) ((orientations[p] + Math.PI) / (2 * Math.PI) * angleBins);
+			angle = Math.max(0, Math.min(angleBins - 1, angle));
+
+			int bin = (row * columns + column) * angleBins + angle;
+			long mask = 1L << bin;
+			if ((occupied[bin >>> 6] & mask) == 0) {
+				occupied[bin >>> 6] |= mask;
+				k++;
+			}
+		}
+
+		return Math.max(minParticles, Math.min(maxParticles, bound(k, epsilon, z)));
+	}
+
+	/**
+	 * Wilson-Hilferty approximation of chi-square quantile used by
+	 * KLD-sampling
+	 * 
+	 * @param k
+	 *            number of occupied bins
+	 * @param epsilon
+	 * @param z
+	 * @return number of particles needed
+	 */
+	public static int bound(int k, double epsilon, double z) {
+		if (k <= 1) {
+			return 1;
+		}
+
+		double a = 2.0 / (9.0 * (k - 1));
+		double b = 1 - a + Math.sqrt(a) * z;
+		double n = (k - 1) / (2 * epsilon) * b * b * b;
+		return n >= Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) Math.ceil(n);
+	}
+
+	/**
+	 * @return lower bound of number of particles
+	 */
+	public int getMinParticles() {
+		return minParticles;
+	}
+
+	/**
+	 * @return upper bound of number of particles
+	 */
+	public int getMaxParticles() {
+		return maxParticles;
+	}
+
+	/**
+	 * @return bytes of bitmap of occupied bins
+	 */
+	public long getMemoryUsage() {
+		return 8L * occupied.length;
+	}
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies in nanoseconds with buckets of constant relative
+ * width, like HdrHistogram. Values below 128 have a bucket each, above that
+ * every power of two is split into 64 buckets, so a recorded value is off
+ * by less than 1.6% and whole range of long fits into a few thousand
+ * counters. Recording is an index computation and an increment, it does
+ * not allocate.
+ * <p>
+ * Histogram is not thread safe.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int HALF = SUB_BUCKETS >> 1;
+	private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * HALF;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max;
+
+	/**
+	 * Records a value
+	 * 
+	 * @param value
+	 *            latency in nanoseconds, negative values are recorded as zero
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		counts[index(value)]++;
+		count++;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	private static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		// highest bit is at least SUB_BUCKET_BITS, shifted value lies in
+		// [HALF, SUB_BUCKETS)
+		int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return SUB_BUCKETS + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+	}
+
+	/**
+	 * Largest value falling into bucket
+	 */
+	private static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+
+		int k = index - SUB_BUCKETS;
+		int shift = k / HALF + 1;
+		long subBucket = k % HALF + HALF;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+	/**
+	 * @param percentile
+	 *            between 0 and 100
+	 * @return value which given percent of recorded values are less than or
+	 *         equal to, 0 if nothing is recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.max(min, Math.min(max, highestValue(i)));
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return number of recorded values
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * @return mean of recorded values, 0 if nothing is recorded
+	 */
+	public double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @return smallest recorded value, 0 if nothing is recorded
+	 */
+	public long getMin() {
+		return count == 0 ? 0 : min;
+	}
+
+	/**
+	 * @return largest recorded value
+	 */
+	public long getMax() {
+		return max;
+	}
+
+	/**
+	 * Forgets recorded values
+	 */
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		min = Long.MAX_VALUE;
+		max = 0;
+	}
+}
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+
+/**
+ * Likelihood field of a map. Map is divided into square cells and squared
+ * distance from every cell to nearest cell a wall passes through is stored,
+ * so weighting
+ * a beam end point is a single array lookup instead of a ray cast. Distances
+ * are clamped to a maximum distance, points far from every wall or outside
+ * of field get same penalty.
+ * <p>
+ * Distances are computed with exact Euclidean distance transform of
+ * Felzenszwalb and Huttenlocher, in time linear in number of cells whatever
+ * the number of walls.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class LikelihoodField {
+
+	/**
+	 * Distance of cells without a wall before transform, large but finite
+	 * so that differences of it do not give NaN
+	 */
+	private static final double FAR = 1e20;
+
+	private final int columns, rows;
+	private final double originX, originY, cellSize, inverseCellSize;
+	private final float maxSquared;
+	private final float[] squares;
+
+	private LikelihoodField(int columns, int rows, double originX, double originY, double cellSize, float maxSquared, float[] squares) {
+		this.columns = columns;
+		this.rows = rows;
+		this.originX = originX;
+		this.originY = originY;
+		this.cellSize = cellSize;
+		this.inverseCellSize = 1 / cellSize;
+		this.maxSquared = maxSquared;
+		this.squares = squares;
+	}
+
+	/**
+	 * Computes field of a room. Field covers room and maximum distance
+	 * around it
+	 * 
+	 * @param room
+	 *            {@link Room} to compute
+	 * @param cellSize
+	 *            size of a square cell
+	 * @param maxDistance
+	 *            largest distance stored, longer distances are clamped
+	 * @return field
+	 */
+	public static LikelihoodField build(Room room, double cellSize, double maxDistance) {
+		if (!(cellSize > 0) || !(maxDistance > 0)) {
+			throw new IllegalArgumentException("Cell size and maximum distance must be positive.");
+		}
+
+		double originX = room.getMinX() - maxDistance;
+		double originY = room.getMinY() - maxDistance;
+		int columns = (int) Math.ceil((room.getMaxX() + maxDistance - originX) / cellSize) + 1;
+		int rows = (int) Math.ceil((room.getMaxY() + maxDistance - originY) / cellSize) + 1;
+
+		double[] grid = new double[columns * rows];
+		Arrays.fill(grid, FAR);
+		markWalls(room, grid, columns, originX, originY, cellSize);
+
+		double[] f = new double[Math.max(columns, rows)];
+		double[] d = new double[f.length];
+		int[] v = new int[f.length];
+		double[] z = new double[f.length + 1];
+
+		for (int c = 0; c < columns; c++) {
+			for (int r = 0; r < rows; r++) {
+				f[r] = grid[r * columns + c];
+			}
+			transform(f, rows, d, v, z);
+			for (int r = 0; r < rows; r++) {
+				grid[r * columns + c] = d[r];
+			}
+		}
+
+		float maxSquared = (float) (maxDistance * maxDistance);
+		float[] squares = new float[columns * rows];
+		double cellArea = cellSize * cellSize;
+		for (int r = 0; r < rows; r++) {
+			System.arraycopy(grid, r * columns, f, 0, columns);
+			transform(f, columns, d, v, z);
+			for (int c = 0; c < columns; c++) {
+				squares[r * columns + c] = (float) Math.min(d[c] * cellArea, maxSquared);
+			}
+		}
+
+		return new LikelihoodField(columns, rows, originX, originY, cellSize, maxSquared, squares);
+	}
+
+	/**
+	 * Marks cells walls pass through with zero distance, walls are sampled
+	 * every half cell
+	 */
+	private static void markWalls(Room room, double[] grid, int columns, double originX, double originY, double cellSize) {
+		double[] x1 = room.getWallX1(), y1 = room.getWallY1(), x2 = room.getWallX2(), y2 = room.getWallY2();
+
+		for (int i = 0; i < x1.length; i++) {
+			double dx = x2[i] - x1[i];
+			double dy = y2[i] - y1[i];
+			int samples = (int) Math.ceil(2 * Math.sqrt(dx * dx + dy * dy) / cellSize) + 1;
+
+			for (int j = 0; j < samples; j++) {
+				double t = samples == 1 ? 0 : (double) j / (samples - 1);
+				int column = (int) ((x1[i] + t * dx - originX) / cellSize);
+				int row = (int) ((y1[i] + t * dy - originY) / cellSize);
+				grid[row * columns + column] = 0;
+			}
+		}
+	}
+
+	/**
+	 * One dimensional squared distance transform, lower envelope of
+	 * parabolas rooted at every sample
+	 * 
+	 * @param f
+	 *            squared distances before transform
+	 * @param n
+	 *            number of samples
+	 * @param d
+	 *            squared distances after transform
+	 * @param v
+	 *            work array of parabola roots
+	 * @param z
+	 *            work array of parabola boundaries
+	 */
+	private static void transform(double[] f, int n, double[] d, int[] v, double[] z) {
+		int k = 0;
+		v[0] = 0;
+		z[0] = Double.NEGATIVE_INFINITY;
+		z[1] = Double.POSITIVE_INFINITY;
+
+		for (int q = 1; q < n; q++) {
+			double s = ((f[q] + (double) q * q) - (f[v[k]] + (double) v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+			while (s <= z[k]) {
+				k--;
+				s = ((f[q] + (double) q * q) - (f[v[k]] + (double) v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+			}
+			k++;
+			v[k] = q;
+			z[k] = s;
+			z[k + 1] = Double.POSITIVE_INFINITY;
+		}
+
+		k = 0;
+		for (int q = 0; q < n; q++) {
+			while (z[k + 1] < q) {
+				k++;
+			}
+			double distance = q - v[k];
+			d[q] = distance * distance + f[v[k]];
+		}
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @return squared distance from point to nearest wall, clamped to
+	 *         squared maximum distance
+	 */
+	public double squaredDistance(double x, double y) {
+		double cx = (x - originX) * inverseCellSize;
+		double cy = (y - originY) * inverseCellSize;
+		if (!(cx >= 0 && cy >= 0 && cx < columns && cy < rows)) {
+			return maxSquared;
+		}
+		return squares[(int) cy * columns + (int) cx];
+	}
+
+	/**
+	 * @return size of a square cell
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * @return largest distance stored
+	 */
+	public double getMaxDistance() {
+		return Math.sqrt(maxSquared);
+	}
+
+	/**
+	 * @return bytes of distance array
+	 */
+	public long getMemoryUsage() {
+		return 4L * squares.length;
+	}
+}
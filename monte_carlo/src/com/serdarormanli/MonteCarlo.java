@@ -10,16 +10,22 @@
  ******************************************************************************/
 package com.serdarormanli;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.Random;
 
-import math.geom2d.Point2D;
-import math.geom2d.line.Line2D;
 import processing.core.PApplet;
 import processing.core.PConstants;
+import processing.core.PImage;
 
 /**
- * Class for all monte carlo localization calculations
+ * Viewer for {@link ParticleFilter}. Robot is driven by mouse and filter is
+ * stepped once per frame. K key moves robot to a random point, R key reloads
+ * noise, sensor range, beams and number of particles from settings.xml, a
+ * run being recorded continues in a new log if beams or sensor range change.
+ * V key switches between drawing all particles, a subset of them or a
+ * heatmap.
+ * Particles are drawn into an image by {@link ParticleRenderer}, which is
+ * shown with a single draw call
  * 
  * @author Serdar Ormanlı
  * 
@@ -30,189 +36,146 @@ public class MonteCarlo extends PApplet {
 
 	Robot d;
 	Room room;
-	Particle[] particleList;
+	ParticleFilter filter;
+	Recorder recorder;
+	int recordPart;
+	Random random;
+	FilterMetrics metrics;
+	ParticleRenderer renderer;
+	PImage particleImage;
 	double bestProb = 0;
 	double bestDist = 0;
+	double estimateDist = 0;
+	int modes = 0;
 
 	public void setup() {
 		frameRate(30);
-		size(Util.width, Util.height,PConstants.P2D);
-		room = new Room(this, Util.getCorners());
-		room.display();
-		particleList = generateParticles(Util.getParticleNum());
-		d = new Robot(this, 320, 240, room);
+		size(Util.getViewerWidth(), Util.getViewerHeight(), PConstants.P2D);
+		room = Util.getRoom();
+		displayRoom();
+		long seed = Util.getSeed();
+		println("Seed: " + seed);
+		random = RandomStreams.create(seed, RandomStreams.VIEWER);
+		filter = new ParticleFilter(room, Util.getRayCaster(room), Util.getConfig(), Runtime.getRuntime().availableProcessors(), seed);
+		filter.setKldSampler(Util.getKldSampler(room));
+		filter.setLikelihoodField(Util.getLikelihoodField(room));
+		metrics = Util.getMetrics("viewer");
+		filter.setMetrics(metrics);
+		renderer = Util.getParticleRenderer(RandomStreams.create(seed, RandomStreams.RENDER));
+		particleImage = createImage(width, height, ARGB);
+		d = new Robot(this, 320, 240, room, RandomStreams.create(seed, RandomStreams.ROBOT), Util.getConfig());
+		try {
+			recorder = Util.getRecorder(room, Util.getConfig(), recordPart);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 		monteCarlo();
 	}
 
 	public void draw() {
 		background(255);
-		room.display();
+		displayRoom();
 		d.display();
 		monteCarlo();
 		fill(0);
-		text(new StringBuilder().append("P: ").append(Util.df.format(bestProb)).append(" D: ").append(Util.df.format(bestDist)).toString(), Util.width - 180, Util.height - 20);
+		text(new StringBuilder().append("P: ").append(Util.df.format(bestProb)).append(" D: ").append(Util.df.format(bestDist)).append(" E: ").append(Util.df.format(estimateDist)).append(" M: ").append(modes).toString(), width - 300, height - 20);
 	}
 
 	/**
-	 * Takes movement model and applies to particles, get sensor reading and
-	 * compares with particle, resamples and shows on screen
+	 * Steps filter with robot's movement and sensor readings and shows
+	 * particles on screen
 	 */
 	private void monteCarlo() {
 
 		if (d.getM().getDistance() > 0.1) {
+			float orientationChange = d.getM().getAngle() - d.getM().getPrevAngle();
 
-			double[] probs = new double[Util.getParticleNum()];
-
-			for (int i = 0; i < particleList.length; i++) {
-				Particle currParticle = particleList[i];
-
-				double prob = currParticle.getWeight();
-
-				float orientationChange = d.getM().getAngle() - d.getM().getPrevAngle();
-
-				if (Float.isInfinite(orientationChange) || Float.isNaN(orientationChange)) {
-					orientationChange = 0;
-				}
-
-				float orientation = (float) Util.radianAdd(orientationChange, Util.getNoise(Util.getOrientNoise()));
-
-				currParticle.setOrientation((float) Util.radianAdd(currParticle.getOrientation(), orientation));
-				currParticle.setX((float) (currParticle.getX() + Math.cos(currParticle.getOrientation()) * (d.getM().getDistance() + Util.getNoise(Util.getMoveNoise()))));
-				currParticle.setY((float) (currParticle.getY() + Math.sin(currParticle.getOrientation()) * (d.getM().getDistance() + Util.getNoise(Util.getMoveNoise()))));
-
-				if (!room.isPointIn(currParticle.getX(), currParticle.getY())) {
-					do {
-						currParticle = new Particle(this, (int) Math.round(Math.random() * Util.width), (int) Math.round(Math.random() * Util.height), 0, (1.0 / Util.getParticleNum()));
-					} while (!room.isPointIn(currParticle.getX(), currParticle.getY()));
-				}
-
-				double[] pdist2 = measure(currParticle.getOrientation(), currParticle.getX(), currParticle.getY());
-
-				for (int j = 0; j < pdist2.length; j++) {
-					prob *= Util.gaussian(pdist2[j], 1.0, d.getPdist()[j]);
-				}
-
-				probs[i] = prob;
+			if (Float.isInfinite(orientationChange) || Float.isNaN(orientationChange)) {
+				orientationChange = 0;
 			}
 
-			Util.normalize(probs);
+			Odometry odometry = new Odometry(orientationChange, d.getM().getDistance());
+			filter.step(odometry, d.getPdist());
+			record(odometry);
 
-			for (int i = 0; i < particleList.length; i++) {
-				Particle currParticle = particleList[i];
-				currParticle.setWeight((float) probs[i]);
-			}
+			bestProb = filter.getBestWeight();
+			bestDist = dist(filter.getBestX(), filter.getBestY(), d.getM().getX(), d.getM().getY());
 
-			particleList = generateNewParticles(particleList);
+			PoseEstimate estimate = filter.getEstimate();
+			if (estimate != null) {
+				estimateDist = dist((float) estimate.getX(), (float) estimate.getY(), d.getM().getX(), d.getM().getY());
+				modes = estimate.getModes();
+			}
 		}
 
-		for (int i = 0; i < particleList.length; i++) {
-			particleList[i].display();
+		long start = metrics == null ? 0 : System.nanoTime();
+		displayParticles();
+		if (metrics != null) {
+			metrics.record(FilterMetrics.RENDER, System.nanoTime() - start);
 		}
-
 	}
 
 	/**
-	 * Generates partilces at random positions with 1/number probability
+	 * Records step to recorder, recording stops at first error
 	 * 
-	 * @param number
-	 *            of particles
-	 * @return new particles based on number of particles
+	 * @param odometry
 	 */
-	private Particle[] generateParticles(int number) {
-		Particle[] particles = new Particle[number];
-		Particle particle = null;
+	private void record(Odometry odometry) {
+		if (recorder == null) {
+			return;
+		}
 
-		for (int j = 0; j < number; j++) {
-			do {
-				particle = new Particle(this, (int) Math.round(Math.random() * Util.width), (int) Math.round(Math.random() * Util.height), (float) (Math.random() * 2 * Math.PI - Math.PI), (1.0 / number));
-			} while (!room.isPointIn(particle.getX(), particle.getY()));
+		try {
+			recorder.record(odometry, d.getM(), d.getPdist(), filter);
+		} catch (IOException e) {
+			e.printStackTrace();
+			closeRecorder();
+		}
+	}
 
-			particle.display();
-			particles[j] = (Particle) particle.clone();
+	private void closeRecorder() {
+		if (recorder == null) {
+			return;
 		}
 
-		return particles;
+		try {
+			recorder.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		recorder = null;
 	}
 
 	/**
-	 * Resamples particles based on weight. Based on resampling wheel
-	 * 
-	 * @param old_particles
-	 * @return
+	 * @see processing.core.PApplet#dispose()
 	 */
-	private Particle[] generateNewParticles(Particle[] old_particles) {
-		int N = old_particles.length;
-		List<Particle> new_particles = new ArrayList<Particle>();
-		double incr = 0;
-		bestProb = 0;
-
-		int index = 0;
-
-		for (int i = 0; i < N; i++) {
-			incr += old_particles[i].getWeight();
+	public void dispose() {
+		closeRecorder();
+		if (filter != null) {
+			filter.shutdown();
 		}
+		super.dispose();
+	}
 
-		incr = incr / 2.0 / N;
-
-		double beta = incr;
-
-		for (int i = 0; i < N; i++) {
-			while (beta > old_particles[index].getWeight()) {
-				beta -= old_particles[index].getWeight();
-				index = (index + 1) % N;
-			}
-
-			beta += incr;
-			new_particles.add((Particle) old_particles[index].clone());
-			if (old_particles[index].getWeight() > bestProb) {
-				bestProb = old_particles[index].getWeight();
-				bestDist = dist(old_particles[index].getX(), old_particles[index].getY(), d.getM().getX(), d.getM().getY());
-			}
+	/**
+	 * Draws room
+	 */
+	private void displayRoom() {
+		double[] x1 = room.getWallX1(), y1 = room.getWallY1(), x2 = room.getWallX2(), y2 = room.getWallY2();
+		stroke(0);
+		for (int i = 0; i < x1.length; i++) {
+			line((float) x1[i], (float) y1[i], (float) x2[i], (float) y2[i]);
 		}
-		return new_particles.toArray(new Particle[N]);
 	}
 
 	/**
-	 * Measure particle
-	 * 
-	 * @param orientation
-	 * @param x
-	 * @param y
-	 * @return measurements of a particle
+	 * Draws particles into image and shows image
 	 */
-	public double[] measure(double orientation, double x, double y) {
-		double distance = Util.getSensorRange() + 1.5;
-
-		double[] reading = new double[Util.sensorRadians.length];
-
-		for (int i = 0; i < reading.length; i++) {
-			double sensor = 0;
-
-			double sensorx = distance * Math.cos(Util.radianAdd(orientation, Util.sensorRadians[i]));
-			double sensory = distance * Math.sin(Util.radianAdd(orientation, Util.sensorRadians[i]));
-
-			double konumx = x + sensorx;
-			double konumy = y + sensory;
-
-			double CX = x + 1.5 * Math.cos(orientation);
-			double CY = y + 1.5 * Math.sin(orientation);
-
-			Point2D value = room.isIntersects(new Line2D(CX, CY, konumx, konumy));
-			if (value != null) {
-				double EX = value.x();
-				double EY = value.y();
-
-				sensor = dist((float) CX, (float) CY, (float) EX, (float) EY);
-
-				sensor = sensor + Util.getNoise(Util.getSensorNoise());
-
-			} else {
-				sensor = Util.getSensorRange() + Util.getNoise(Util.getSensorNoise());
-
-			}
-			reading[i] = sensor;
-		}
-		return reading;
+	private void displayParticles() {
+		particleImage.loadPixels();
+		renderer.render(filter.getParticles(), particleImage.pixels);
+		particleImage.updatePixels();
+		image(particleImage, 0, 0);
 	}
 
 	/**
@@ -220,10 +183,29 @@ public class MonteCarlo extends PApplet {
 	 */
 	public void keyPressed() {
 		if (key == 'K' || key == 'k') {
-			do {
-				d.getM().setX(Math.round(Math.random() * Util.width));
-				d.getM().setY(Math.round(Math.random() * Util.height));
-			} while (!room.isPointIn(d.getM().getX(), d.getM().getY()));
+			float[] x = new float[1], y = new float[1];
+			room.samplePoint(random, x, y, 0);
+			d.getM().setX(x[0]);
+			d.getM().setY(y[0]);
+		} else if (key == 'R' || key == 'r') {
+			FilterConfig config = Util.reloadConfig();
+			if (config.getSensorRange() != filter.getConfig().getSensorRange()) {
+				// ray cast table holds rays of sensor range it was built for
+				filter.setConfig(config, Util.getRayCaster(room));
+			} else {
+				filter.setConfig(config);
+			}
+			d.setConfig(config);
+			if (recorder != null && !recorder.matches(config)) {
+				closeRecorder();
+				try {
+					recorder = Util.getRecorder(room, config, ++recordPart);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		} else if (key == 'V' || key == 'v') {
+			renderer.setMode((renderer.getMode() + 1) % (ParticleRenderer.HEATMAP + 1));
 		}
 	}
 
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Multinomial resampling. Every particle is picked independently. Sorted
+ * uniform points are generated from cumulative sums of exponential spacings,
+ * so picking takes linear time instead of a binary search per particle.
+ * Instances keep a generator of their own and should not be shared between
+ * threads.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class MultinomialResampler implements Resampler {
+
+	private final Random spacings = new SplitMixRandom();
+
+	/**
+	 * @see com.serdarormanli.Resampler#resample(double[], int, int[], int,
+	 *      java.util.Random)
+	 */
+	@Override
+	public void resample(double[] weights, int size, int[] indices, int count, Random random) {
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += weights[i];
+		}
+
+		pick(weights, size, total, indices, 0, count, random);
+	}
+
+	/**
+	 * Picks particles independently
+	 * 
+	 * @param weights
+	 * @param size
+	 *            number of particles in weights
+	 * @param total
+	 *            sum of weights
+	 * @param indices
+	 *            array indices of picked particles are written into
+	 * @param offset
+	 *            first index of indices to write
+	 * @param count
+	 *            number of particles to pick
+	 * @param random
+	 */
+	void pick(double[] weights, int size, double total, int[] indices, int offset, int count, Random random) {
+		if (count == 0) {
+			return;
+		}
+
+		// k-th of n sorted uniforms is S(k) / S(n + 1) where S is sum of
+		// exponential variables. S(n + 1) is drawn first by summing them in
+		// a loop with same seed, so spacings need not to be stored
+		long seed = random.nextLong();
+		spacings.setSeed(seed);
+		double sum = 0;
+		for (int i = 0; i <= count; i++) {
+			sum -= Math.log(1 - spacings.nextDouble());
+		}
+
+		spacings.setSeed(seed);
+		double scale = total / sum;
+		double u = 0;
+		double cumulative = weights[0];
+		int j = 0;
+
+		for (int i = 0; i < count; i++) {
+			u -= Math.log(1 - spacings.nextDouble()) * scale;
+			while (u > cumulative && j < size - 1) {
+				cumulative += weights[++j];
+			}
+			indices[offset + i] = j;
+		}
+	}
+}
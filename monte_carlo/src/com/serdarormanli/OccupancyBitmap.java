@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Rasterized free space of a map. Two bits are kept per square cell, one
+ * tells cell is inside of map and other tells a wall passes through cell.
+ * Containment of a point is a bit lookup, only points in cells with a wall
+ * fall back to exact test of {@link SegmentGrid}.
+ * <p>
+ * Indices of cells having free space are also listed, so uniform points of
+ * free space are sampled by picking a cell and a point in it. Only points
+ * in wall cells can be rejected, therefore sampling takes constant time
+ * regardless of how small free area of map is.
+ * <p>
+ * Rasterizing is the slowest part of loading a map, so bitmap can be written
+ * to and read back from a map cache.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class OccupancyBitmap {
+
+	private final SegmentGrid walls;
+
+	private final double minX, minY, cellSize;
+	private final int columns, rows;
+
+	private final long[] inside;
+	private final long[] boundary;
+	private final int[] freeCells;
+
+	/**
+	 * @param walls
+	 *            walls of map
+	 * @param minX
+	 *            smallest x coordinate of map
+	 * @param minY
+	 *            smallest y coordinate of map
+	 * @param maxX
+	 *            biggest x coordinate of map
+	 * @param maxY
+	 *            biggest y coordinate of map
+	 * @param cellSize
+	 *            size of a square cell
+	 */
+	public OccupancyBitmap(SegmentGrid walls, double minX, double minY, double maxX, double maxY, double cellSize) {
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException("Cell size must be positive.");
+		}
+
+		this.walls = walls;
+		this.minX = minX;
+		this.minY = minY;
+		this.cellSize = cellSize;
+		this.columns = (int) ((maxX - minX) / cellSize) + 1;
+		this.rows = (int) ((maxY - minY) / cellSize) + 1;
+
+		long cells = (long) columns * rows;
+		if (cells > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Cell size is too small for map.");
+		}
+
+		inside = new long[(int) ((cells + 63) >>> 6)];
+		boundary = new long[inside.length];
+
+		// centers of a row are tested against crossings of row's center line,
+		// which are found once per row
+		double[] crossings = new double[walls.size()];
+		int free = 0;
+		for (int r = 0; r < rows; r++) {
+			double y = minY + r * cellSize;
+			int count = walls.crossings(y + cellSize / 2, crossings);
+			int right = 0;
+			for (int c = 0; c < columns; c++) {
+				double x = minX + c * cellSize;
+				int i = r * columns + c;
+				while (right < count && crossings[right] <= x + cellSize / 2) {
+					right++;
+				}
+				if (walls.touchesBox(x, y, x + cellSize, y + cellSize)) {
+					boundary[i >>> 6] |= 1L << i;
+					free++;
+				} else if (((count - right) & 1) != 0) {
+					inside[i >>> 6] |= 1L << i;
+					free++;
+				}
+			}
+		}
+
+		freeCells = new int[free];
+		int k = 0;
+		for (int i = 0; i < columns * rows; i++) {
+			if (((inside[i >>> 6] | boundary[i >>> 6]) & (1L << i)) != 0) {
+				freeCells[k++] = i;
+			}
+		}
+	}
+
+	private OccupancyBitmap(SegmentGrid walls, double minX, double minY, double cellSize, int columns, int rows, long[] inside, long[] boundary, int[] freeCells) {
+		this.walls = walls;
+		this.minX = minX;
+		this.minY = minY;
+		this.cellSize = cellSize;
+		this.columns = columns;
+		this.rows = rows;
+		this.inside = inside;
+		this.boundary = boundary;
+		this.freeCells = freeCells;
+	}
+
+	/**
+	 * Creates bitmap of free cells of an occupancy grid, bitmap has cells of
+	 * grid so no cell needs exact test
+	 * 
+	 * @param walls
+	 *            walls of grid
+	 * @param grid
+	 *            {@link OccupancyGrid}
+	 * @return bitmap
+	 */
+	public static OccupancyBitmap fromGrid(SegmentGrid walls, OccupancyGrid grid) {
+		int columns = grid.getColumns();
+		int rows = grid.getRows();
+		long[] inside = new long[(int) (((long) columns * rows + 63) >>> 6)];
+
+		int free = 0;
+		for (int r = 0; r < rows; r++) {
+			for (int c = 0; c < columns; c++) {
+				if (grid.get(c, r) == OccupancyGrid.FREE) {
+					int i = r * columns + c;
+					inside[i >>> 6] |= 1L << i;
+					free++;
+				}
+			}
+		}
+
+		int[] freeCells = new int[free];
+		int k = 0;
+		for (int i = 0; i < columns * rows; i++) {
+			if ((inside[i >>> 6] & (1L << i)) != 0) {
+				freeCells[k++] = i;
+			}
+		}
+
+		return new OccupancyBitmap(walls, grid.getOriginX(), grid.getOriginY(), grid.getResolution(), columns, rows, inside, new long[inside.length], freeCells);
+	}
+
+	/**
+	 * Reads a bitmap written by {@link #write(DataOutput)}. Cell arrays are
+	 * copied in bulk
+	 * 
+	 * @param in
+	 *            buffer positioned at bitmap, position is moved after it
+	 * @param walls
+	 *            walls of map bitmap was rasterized from
+	 * @return bitmap
+	 * @throws IOException
+	 *             if bitmap is not valid
+	 */
+	public static OccupancyBitmap read(ByteBuffer in, SegmentGrid walls) throws IOException {
+		try {
+			double minX = in.getDouble();
+			double minY = in.getDouble();
+			double cellSize = in.getDouble();
+			int columns = in.getInt();
+			int rows = in.getInt();
+
+			long cells = (long) columns * rows;
+			if (columns <= 0 || rows <= 0 || cells > Integer.MAX_VALUE || !(cellSize > 0)) {
+				throw new IOException("Occupancy bitmap is not valid.");
+			}
+
+			long[] inside = new long[(int) ((cells + 63) >>> 6)];
+			long[] boundary = new long[inside.length];
+			in.asLongBuffer().get(inside).get(boundary);
+			in.position(in.position() + 16 * inside.length);
+
+			int free = in.getInt();
+			if (free < 0 || free > cells) {
+				throw new IOException("Occupancy bitmap is not valid.");
+			}
+			int[] freeCells = new int[free];
+			in.asIntBuffer().get(freeCells);
+			in.position(in.position() + 4 * free);
+
+			return new OccupancyBitmap(walls, minX, minY, cellSize, columns, rows, inside, boundary, freeCells);
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Occupancy bitmap is truncated.");
+		} catch (IllegalArgumentException e) {
+			throw new IOException("Occupancy bitmap is truncated.");
+		}
+	}
+
+	/**
+	 * Writes bitmap, walls are not written
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeDouble(minX);
+		out.writeDouble(minY);
+		out.writeDouble(cellSize);
+		out.writeInt(columns);
+		out.writeInt(rows);
+		for (int i = 0; i < inside.length; i++) {
+			out.writeLong(inside[i]);
+		}
+		for (int i = 0; i < boundary.length; i++) {
+			out.writeLong(boundary[i]);
+		}
+		out.writeInt(freeCells.length);
+		for (int i = 0; i < freeCells.length; i++) {
+			out.writeInt(freeCells[i]);
+		}
+	}
+
+	/**
+	 * Checks a point is in map
+	 * 
+	 * @param x
+	 * @param y
+	 * @return true if point is in map, else false
+	 */
+	public boolean isPointIn(double x, double y) {
+		double fx = (x - minX) / cellSize;
+		double fy = (y - minY) / cellSize;
+		if (!(fx >= 0 && fy >= 0 && fx < columns && fy < rows)) {
+			return false;
+		}
+
+		int i = (int) fy * columns + (int) fx;
+		if ((boundary[i >>> 6] & (1L << i)) != 0) {
+			return walls.isPointIn(x, y);
+		}
+		return (inside[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * Samples a uniformly distributed point of free space
+	 * 
+	 * @param random
+	 *            generator to draw from
+	 * @param xs
+	 *            array x coordinate is written into
+	 * @param ys
+	 *            array y coordinate is written into
+	 * @param index
+	 *            index of arrays to write
+	 */
+	public void sample(Random random, float[] xs, float[] ys, int index) {
+		if (freeCells.length == 0) {
+			throw new IllegalStateException("Map has no free space.");
+		}
+
+		while (true) {
+			int i = freeCells[random.nextInt(freeCells.length)];
+			float x = (float) (minX + (i % columns + random.nextDouble()) * cellSize);
+			float y = (float) (minY + (i / columns + random.nextDouble()) * cellSize);
+
+			if ((boundary[i >>> 6] & (1L << i)) == 0 || walls.isPointIn(x, y)) {
+				xs[index] = x;
+				ys[index] = y;
+				return;
+			}
+		}
+	}
+}
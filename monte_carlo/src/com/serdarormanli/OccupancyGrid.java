@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Occupancy grid map read from a grayscale image, like maps of ROS
+ * map_server. Dark pixels are occupied, light pixels are free and pixels in
+ * between are unknown. Occupancy of a pixel is (255 - value) / 255, above
+ * {@link #OCCUPIED_THRESHOLD} it is occupied and below
+ * {@link #FREE_THRESHOLD} it is free.
+ * <p>
+ * First row of image is at origin and rows grow along y, like screen
+ * coordinates of viewer. PGM images (P2 and P5) are read directly, other
+ * formats like PNG through ImageIO.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class OccupancyGrid {
+
+	public static final byte FREE = 0;
+	public static final byte OCCUPIED = 1;
+	public static final byte UNKNOWN = 2;
+
+	public static final double OCCUPIED_THRESHOLD = 0.65;
+	public static final double FREE_THRESHOLD = 0.196;
+
+	private final int columns, rows;
+	private final double resolution, originX, originY;
+	private final byte[] cells;
+
+	/**
+	 * @param columns
+	 *            width of grid in cells
+	 * @param rows
+	 *            height of grid in cells
+	 * @param resolution
+	 *            size of a square cell
+	 * @param originX
+	 *            x coordinate of left edge of first column
+	 * @param originY
+	 *            y coordinate of top edge of first row
+	 * @param cells
+	 *            {@link #FREE}, {@link #OCCUPIED} or {@link #UNKNOWN} per
+	 *            cell, row by row, array is not copied
+	 */
+	public OccupancyGrid(int columns, int rows, double resolution, double originX, double originY, byte[] cells) {
+		if (columns < 1 || rows < 1 || (long) columns * rows != cells.length) {
+			throw new IllegalArgumentException("Size of grid does not match its cells.");
+		}
+		if (!(resolution > 0)) {
+			throw new IllegalArgumentException("Resolution must be positive.");
+		}
+
+		this.columns = columns;
+		this.rows = rows;
+		this.resolution = resolution;
+		this.originX = originX;
+		this.originY = originY;
+		this.cells = cells;
+	}
+
+	/**
+	 * Reads grid from an image
+	 * 
+	 * @param file
+	 *            PGM, PNG or another image format ImageIO reads
+	 * @param resolution
+	 *            size of a pixel in map units
+	 * @param originX
+	 *            x coordinate of left edge of image
+	 * @param originY
+	 *            y coordinate of top edge of image
+	 * @return grid
+	 * @throws IOException
+	 */
+	public static OccupancyGrid read(File file, double resolution, double originX, double originY) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			in.mark(2);
+			boolean pgm = in.read() == 'P' && isPgmType(in.read());
+			in.reset();
+			if (pgm) {
+				return readPgm(in, resolution, originX, originY);
+			}
+
+			BufferedImage image = ImageIO.read(in);
+			if (image == null) {
+				throw new IOException("Unknown image format: " + file);
+			}
+			// samples of grayscale images are read from raster, since
+			// getRGB converts them to sRGB and changes their values
+			Raster raster = image.getRaster();
+			boolean gray = raster.getNumBands() == 1;
+			int maxValue = gray ? (1 << raster.getSampleModel().getSampleSize(0)) - 1 : 255;
+			byte[] cells = new byte[image.getWidth() * image.getHeight()];
+			for (int y = 0; y < image.getHeight(); y++) {
+				for (int x = 0; x < image.getWidth(); x++) {
+					int value;
+					if (gray) {
+						value = raster.getSample(x, y, 0);
+					} else {
+						int rgb = image.getRGB(x, y);
+						value = (((rgb >> 16) & 0xFF) + ((rgb >> 8) & 0xFF) + (rgb & 0xFF)) / 3;
+					}
+					cells[y * image.getWidth() + x] = classify(value, maxValue);
+				}
+			}
+			return new OccupancyGrid(image.getWidth(), image.getHeight(), resolution, originX, originY, cells);
+		} finally {
+			in.close();
+		}
+	}
+
+	private static boolean isPgmType(int type) {
+		return type == '2' || type == '5';
+	}
+
+	/**
+	 * Reads a plain (P2) or binary (P5) PGM image
+	 */
+	private static OccupancyGrid readPgm(InputStream in, double resolution, double originX, double originY) throws IOException {
+		in.read();
+		boolean binary = in.read() == '5';
+		int width = readPgmNumber(in);
+		int height = readPgmNumber(in);
+		int maxValue = readPgmNumber(in);
+		if (width < 1 || height < 1 || maxValue < 1 || maxValue > 65535) {
+			throw new IOException("PGM header is not valid.");
+		}
+
+		byte[] cells = new byte[width * height];
+		for (int i = 0; i < cells.length; i++) {
+			int value;
+			if (!binary) {
+				value = readPgmNumber(in);
+			} else if (maxValue < 256) {
+				value = in.read();
+			} else {
+				int high = in.read();
+				value = (high << 8) | in.read();
+			}
+			if (value < 0) {
+				throw new IOException("PGM image is truncated.");
+			}
+			cells[i] = classify(value, maxValue);
+		}
+		return new OccupancyGrid(width, height, resolution, originX, originY, cells);
+	}
+
+	/**
+	 * Reads a decimal number of PGM header or plain PGM raster, skipping
+	 * whitespace and comments before it and a single whitespace after it
+	 */
+	private static int readPgmNumber(InputStream in) throws IOException {
+		int c = in.read();
+		while (c == '#' || Character.isWhitespace(c)) {
+			if (c == '#') {
+				while (c != '\n' && c != '\r' && c != -1) {
+					c = in.read();
+				}
+			}
+			c = in.read();
+		}
+
+		if (c < '0' || c > '9') {
+			throw new IOException("PGM image is not valid.");
+		}
+		int value = 0;
+		while (c >= '0' && c <= '9') {
+			value = value * 10 + (c - '0');
+			c = in.read();
+		}
+		return value;
+	}
+
+	private static byte classify(int value, int maxValue) {
+		double occupancy = (double) (maxValue - value) / maxValue;
+		if (occupancy > OCCUPIED_THRESHOLD) {
+			return OCCUPIED;
+		} else if (occupancy < FREE_THRESHOLD) {
+			return FREE;
+		}
+		return UNKNOWN;
+	}
+
+	/**
+	 * @param column
+	 * @param row
+	 * @return {@link #FREE}, {@link #OCCUPIED} or {@link #UNKNOWN}
+	 */
+	public byte get(int column, int row) {
+		return cells[row * columns + column];
+	}
+
+	/**
+	 * @return width of grid in cells
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * @return height of grid in cells
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * @return size of a square cell
+	 */
+	public double getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * @return x coordinate of left edge of first column
+	 */
+	public double getOriginX() {
+		return originX;
+	}
+
+	/**
+	 * @return y coordinate of top edge of first row
+	 */
+	public double getOriginY() {
+		return originY;
+	}
+}
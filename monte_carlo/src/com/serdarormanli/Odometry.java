@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * Relative motion of robot between two filter steps. Robot first turns by
+ * rotation, then drives distance along its new heading.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class Odometry {
+	private final double rotation;
+	private final double distance;
+
+	/**
+	 * @param rotation
+	 *            change of heading in radians
+	 * @param distance
+	 *            travelled distance after rotation
+	 */
+	public Odometry(double rotation, double distance) {
+		this.rotation = rotation;
+		this.distance = distance;
+	}
+
+	/**
+	 * @return change of heading in radians
+	 */
+	public double getRotation() {
+		return rotation;
+	}
+
+	/**
+	 * @return travelled distance
+	 */
+	public double getDistance() {
+		return distance;
+	}
+}
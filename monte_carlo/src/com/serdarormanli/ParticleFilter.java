@@ -0,0 +1,911 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte carlo localization engine. Does not depend on Processing, so it can be
+ * stepped from a viewer, a batch job or a server as fast as the CPU allows.
+ * <p>
+ * Particles are updated in fixed size blocks. Every block draws its noise
+ * from its own generator seeded by filter seed, step and block index, so a
+ * filter with a fixed seed gives same particles for any number of threads.
+ * All draws of filter come from {@link RandomStreams} of its seed.
+ * Gaussian noise of a whole block is drawn into a buffer in one call of
+ * {@link GaussianSampler} before particles are moved.
+ * <p>
+ * Before resampling, {@link PoseEstimator} of filter turns weighted
+ * particles into a {@link PoseEstimate}. Particles are resampled only when
+ * their effective sample size falls below resample threshold of
+ * {@link FilterConfig} or configured number of particles changes, otherwise
+ * weights are carried to next step.
+ * Resampled particles start with equal weights. Latencies of phases of a step are
+ * recorded into {@link FilterMetrics} if filter has one.
+ * <p>
+ * Particles are weighted by ray casting every beam and comparing simulated
+ * readings with readings of robot, or with a {@link LikelihoodField} of map
+ * by looking up distance from end point of every reading to nearest wall.
+ * Readings are given for beams of {@link BeamSet} of configuration, with
+ * many beams particles can be weighted with an evenly spaced subsample of
+ * them.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ParticleFilter {
+
+	private static final int BLOCK_SIZE = 1024;
+	private static final double SENSOR_OFFSET = 1.5;
+	private static final double MEASUREMENT_SIGMA = 1.0;
+
+	private final Room room;
+	private volatile RayCaster rayCaster;
+	private RayCaster stepCaster;
+	private BeamSet rayBeams;
+	private double[] beamLengths;
+	private int beamStride;
+	private int weightedBeams;
+	private double likelihoodNorm;
+	private boolean logWeighting = true;
+
+	private final ParticleSet particles;
+	private double[] probs;
+	private int[] indices;
+	private final Random resampleRandom = new SplitMixRandom();
+	private final Random sensorRandom;
+	private Resampler resampler = new SystematicResampler();
+	private KldSampler kldSampler;
+	private GaussianSampler gaussianSampler = new ZigguratGaussianSampler();
+	private PoseEstimator estimator;
+	private volatile PoseEstimate estimate;
+
+	private Random[] randoms;
+	private double[][] readingBuffers;
+	private double[][] noiseBuffers;
+	private double[][] squareBuffers;
+	private long[] blockNanos;
+	private int[] blockRespawned;
+	private final ForkJoinPool pool;
+	private final long seed;
+	private long stepCount;
+
+	private volatile FilterConfig config;
+	private FilterConfig stepConfig;
+
+	private volatile FilterMetrics metrics;
+	private FilterMetrics stepMetrics;
+
+	private volatile LikelihoodField likelihoodField;
+	private LikelihoodField stepField;
+
+	private float bestX, bestY;
+	private double bestWeight;
+	private double effectiveSampleSize;
+	private boolean resampled;
+
+	/**
+	 * @param room
+	 *            {@link Room} robot is localized in
+	 * @param rayCaster
+	 *            {@link RayCaster} used for measuring particles, room itself
+	 *            or a {@link RayCastTable} of it
+	 * @param config
+	 *            sensor range, number of particles and noise
+	 * @param threads
+	 *            number of worker threads used for updating particles
+	 * @param seed
+	 *            seed of all random draws of filter
+	 * @throws IllegalArgumentException
+	 *             if rays of sensor range are longer than range of ray
+	 *             caster
+	 */
+	public ParticleFilter(Room room, RayCaster rayCaster, FilterConfig config, int threads, long seed) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Number of threads must be positive.");
+		}
+		checkRange(rayCaster, config);
+
+		this.room = room;
+		this.rayCaster = rayCaster;
+		this.stepCaster = rayCaster;
+		this.estimator = new PoseEstimator(room);
+		this.config = config;
+		this.stepConfig = config;
+		this.particles = new ParticleSet(config.getParticleNum());
+		this.probs = new double[0];
+		this.indices = new int[0];
+		this.randoms = new Random[0];
+		this.readingBuffers = new double[0][];
+		this.noiseBuffers = new double[0][];
+		this.squareBuffers = new double[0][];
+		this.blockNanos = new long[0];
+		this.blockRespawned = new int[0];
+		this.seed = seed;
+		this.sensorRandom = RandomStreams.create(seed, RandomStreams.SENSOR);
+
+		this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+
+		computeBeams(config);
+
+		ensureCapacity(config.getParticleNum());
+		generateParticles(RandomStreams.create(seed, RandomStreams.PARTICLES));
+	}
+
+	/**
+	 * Takes movement model and applies to particles, compares particles with
+	 * sensor readings and resamples
+	 * 
+	 * @param odometry
+	 *            motion of robot since last step
+	 * @param readings
+	 *            sensor readings of robot, one per beam of
+	 *            {@link FilterConfig#getBeams()}
+	 */
+	public void step(Odometry odometry, double[] readings) {
+		FilterConfig current;
+		synchronized (this) {
+			// configuration and ray caster are changed together
+			current = config;
+			stepCaster = rayCaster;
+		}
+		if (readings.length != current.getBeams().size()) {
+			throw new IllegalArgumentException("Number of readings does not match number of beams.");
+		}
+
+		stepCount++;
+
+		if (current.getSensorRange() != stepConfig.getSensorRange() || !current.getBeams().equals(stepConfig.getBeams()) || current.getWeightBeams() != stepConfig.getWeightBeams()) {
+			computeBeams(current);
+		}
+		stepConfig = current;
+		stepMetrics = metrics;
+		stepField = likelihoodField;
+
+		int N = particles.size();
+		int blocks = (N + BLOCK_SIZE - 1) / BLOCK_SIZE;
+
+		if (pool == null) {
+			for (int i = 0; i < blocks; i++) {
+				updateBlock(i, odometry, readings);
+			}
+		} else {
+			pool.invoke(new UpdateTask(0, blocks, odometry, readings));
+		}
+
+		long start = stepMetrics == null ? 0 : System.nanoTime();
+
+		if (logWeighting) {
+			Util.normalizeLog(probs, 0, N);
+		} else {
+			Util.normalize(probs, 0, N);
+		}
+
+		System.arraycopy(probs, 0, particles.getWeight(), 0, N);
+
+		long normalized = stepMetrics == null ? 0 : System.nanoTime();
+
+		if (estimator != null) {
+			estimate = estimator.estimate(particles);
+		}
+
+		long estimated = stepMetrics == null ? 0 : System.nanoTime();
+
+		findBest();
+		effectiveSampleSize = FilterMetrics.effectiveSampleSize(particles.getWeight(), 0, N);
+		// a new number of particles is reached by resampling, so it forces one
+		double threshold = stepConfig.getResampleThreshold();
+		resampled = threshold >= 1 || effectiveSampleSize < threshold * N || (kldSampler == null && stepConfig.getParticleNum() != N);
+		if (resampled) {
+			generateNewParticles();
+		}
+
+		if (stepMetrics != null) {
+			recordMetrics(blocks, normalized - start, estimated - normalized, System.nanoTime() - estimated);
+		}
+	}
+
+	/**
+	 * Finds heaviest particle of current buffer
+	 */
+	private void findBest() {
+		int N = particles.size();
+		double[] weights = particles.getWeight();
+		int best = 0;
+
+		for (int i = 1; i < N; i++) {
+			if (weights[i] > weights[best]) {
+				best = i;
+			}
+		}
+
+		bestX = particles.getX()[best];
+		bestY = particles.getY()[best];
+		bestWeight = weights[best];
+	}
+
+	/**
+	 * Records latencies of phases of step into metrics
+	 * 
+	 * @param blocks
+	 *            number of blocks updated in step
+	 * @param normalize
+	 *            nanoseconds spent normalizing
+	 * @param estimate
+	 *            nanoseconds spent estimating pose
+	 * @param resample
+	 *            nanoseconds spent deciding on and resampling
+	 */
+	private void recordMetrics(int blocks, long normalize, long estimate, long resample) {
+		long motion = 0, rayCast = 0, weighting = 0;
+		int respawned = 0;
+		for (int i = 0; i < blocks; i++) {
+			motion += blockNanos[3 * i];
+			rayCast += blockNanos[3 * i + 1];
+			weighting += blockNanos[3 * i + 2];
+			respawned += blockRespawned[i];
+		}
+
+		stepMetrics.record(FilterMetrics.MOTION, motion);
+		stepMetrics.record(FilterMetrics.RAY_CAST, rayCast);
+		stepMetrics.record(FilterMetrics.WEIGHTING, weighting);
+		stepMetrics.record(FilterMetrics.NORMALIZE, normalize);
+		stepMetrics.record(FilterMetrics.ESTIMATE, estimate);
+		stepMetrics.record(FilterMetrics.RESAMPLE, resample);
+		stepMetrics.recordStep(respawned, effectiveSampleSize, resampled);
+	}
+
+	/**
+	 * Grows buffers of filter to hold given number of particles
+	 * 
+	 * @param capacity
+	 */
+	private void ensureCapacity(int capacity) {
+		particles.ensureCapacity(capacity);
+
+		if (probs.length < capacity) {
+			probs = new double[capacity];
+			indices = new int[capacity];
+		}
+
+		int blocks = (capacity + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		if (randoms.length < blocks) {
+			int old = randoms.length;
+			randoms = Arrays.copyOf(randoms, blocks);
+			readingBuffers = Arrays.copyOf(readingBuffers, blocks);
+			noiseBuffers = Arrays.copyOf(noiseBuffers, blocks);
+			squareBuffers = Arrays.copyOf(squareBuffers, blocks);
+			blockNanos = new long[3 * blocks];
+			blockRespawned = new int[blocks];
+			for (int i = old; i < blocks; i++) {
+				randoms[i] = new SplitMixRandom();
+				readingBuffers[i] = new double[BLOCK_SIZE * weightedBeams];
+				noiseBuffers[i] = new double[BLOCK_SIZE * (3 + weightedBeams)];
+				squareBuffers[i] = new double[BLOCK_SIZE];
+			}
+		}
+	}
+
+	/**
+	 * Applies movement model to particles of a block and calculates their
+	 * probabilities
+	 * 
+	 * @param block
+	 *            index of block
+	 * @param odometry
+	 * @param readings
+	 */
+	private void updateBlock(int block, Odometry odometry, double[] readings) {
+		int N = particles.size();
+		float[] xs = particles.getX();
+		float[] ys = particles.getY();
+		float[] orientations = particles.getOrientation();
+		double[] weights = particles.getWeight();
+
+		Random random = randoms[block];
+		random.setSeed(RandomStreams.seed(seed, RandomStreams.MOTION, stepCount, block));
+		double[] reading = readingBuffers[block];
+		int beams = weightedBeams;
+
+		int start = block * BLOCK_SIZE;
+		int end = Math.min(N, start + BLOCK_SIZE);
+
+		// three motion noises and a sensor noise per weighted beam for every
+		// particle, likelihood field does not simulate readings so it needs no
+		// sensor noise
+		LikelihoodField field = stepField;
+		int stride = field == null ? 3 + beams : 3;
+		double[] noise = noiseBuffers[block];
+		gaussianSampler.fill(random, noise, 0, (end - start) * stride);
+		double orientNoise = stepConfig.getOrientationNoise();
+		double moveNoise = stepConfig.getMoveNoise();
+
+		FilterMetrics metrics = stepMetrics;
+		long started = metrics == null ? 0 : System.nanoTime();
+		int respawned = 0;
+
+		for (int i = start; i < end; i++) {
+			int n = (i - start) * stride;
+			float orientation = (float) Util.radianAdd(odometry.getRotation(), noise[n] * orientNoise);
+
+			orientations[i] = (float) Util.radianAdd(orientations[i], orientation);
+			xs[i] = (float) (xs[i] + Math.cos(orientations[i]) * (odometry.getDistance() + noise[n + 1] * moveNoise));
+			ys[i] = (float) (ys[i] + Math.sin(orientations[i]) * (odometry.getDistance() + noise[n + 2] * moveNoise));
+
+			if (!room.isPointIn(xs[i], ys[i])) {
+				room.samplePoint(random, xs, ys, i);
+				orientations[i] = 0;
+				weights[i] = 1.0 / N;
+				respawned++;
+			}
+		}
+
+		long moved = metrics == null ? 0 : System.nanoTime();
+
+		double[] squares = squareBuffers[block];
+		long measured;
+
+		if (field == null) {
+			for (int i = start; i < end; i++) {
+				measure(orientations[i], xs[i], ys[i], reading, (i - start) * beams, noise, (i - start) * stride + 3, beamStride);
+			}
+
+			measured = metrics == null ? 0 : System.nanoTime();
+
+			// squared residuals of whole block in one tight loop over
+			// primitive arrays, simulated readings hold weighted beams only
+			int subsample = beamStride;
+			for (int i = start; i < end; i++) {
+				int base = (i - start) * beams;
+				double sum = 0;
+				for (int j = 0; j < beams; j++) {
+					double residual = reading[base + j] - readings[j * subsample];
+					sum += residual * residual;
+				}
+				squares[i - start] = sum;
+			}
+		} else {
+			for (int i = start; i < end; i++) {
+				squares[i - start] = fieldSquares(field, orientations[i], xs[i], ys[i], readings);
+			}
+
+			measured = metrics == null ? 0 : System.nanoTime();
+		}
+
+		// constant of gaussian is left out in log space since normalization
+		// cancels it
+		double inverseVariance = 1 / (MEASUREMENT_SIGMA * MEASUREMENT_SIGMA);
+		for (int i = start; i < end; i++) {
+			double logLikelihood = -0.5 * squares[i - start] * inverseVariance;
+			if (logWeighting) {
+				probs[i] = Math.log(weights[i]) + logLikelihood;
+			} else {
+				probs[i] = weights[i] * likelihoodNorm * Math.exp(logLikelihood);
+			}
+		}
+
+		blockRespawned[block] = respawned;
+		if (metrics != null) {
+			blockNanos[3 * block] = moved - started;
+			blockNanos[3 * block + 1] = measured - moved;
+			blockNanos[3 * block + 2] = System.nanoTime() - measured;
+		}
+	}
+
+	/**
+	 * Splits blocks between workers of pool
+	 */
+	private class UpdateTask extends RecursiveAction {
+		private static final long serialVersionUID = -3394531580207453187L;
+
+		private final int from, to;
+		private final Odometry odometry;
+		private final double[] readings;
+
+		UpdateTask(int from, int to, Odometry odometry, double[] readings) {
+			this.from = from;
+			this.to = to;
+			this.odometry = odometry;
+			this.readings = readings;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from == 1) {
+				updateBlock(from, odometry, readings);
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new UpdateTask(from, middle, odometry, readings), new UpdateTask(middle, to, odometry, readings));
+			}
+		}
+	}
+
+	/**
+	 * Generates partilces at random positions with 1/number probability
+	 * 
+	 * @param random
+	 */
+	private void generateParticles(Random random) {
+		int number = particles.size();
+		float[] xs = particles.getX();
+		float[] ys = particles.getY();
+
+		for (int j = 0; j < number; j++) {
+			room.samplePoint(random, xs, ys, j);
+			particles.getOrientation()[j] = (float) (random.nextDouble() * 2 * Math.PI - Math.PI);
+			particles.getWeight()[j] = 1.0 / number;
+		}
+	}
+
+	/**
+	 * Resamples particles based on weight into next buffer of
+	 * {@link ParticleSet} with {@link Resampler} of filter, resampled
+	 * particles get equal weights. Package private for benchmarks
+	 */
+	void generateNewParticles() {
+		int N = particles.size();
+		double[] weights = particles.getWeight();
+
+		resampleRandom.setSeed(RandomStreams.seed(seed, RandomStreams.RESAMPLE, stepCount, 0));
+		// number of particles follows configuration, or KLD bound of a first
+		// draw of same size as current particles
+		int count = kldSampler == null ? stepConfig.getParticleNum() : N;
+		ensureCapacity(count);
+		weights = particles.getWeight();
+		resampler.resample(weights, N, indices, count, resampleRandom);
+
+		if (kldSampler != null) {
+			int needed = kldSampler.particleCount(particles, indices, count);
+			if (needed != count) {
+				count = needed;
+				ensureCapacity(count);
+				weights = particles.getWeight();
+				resampler.resample(weights, N, indices, count, resampleRandom);
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			particles.copyToNext(indices[i], i);
+		}
+
+		particles.swap();
+		particles.setSize(count);
+		Arrays.fill(particles.getWeight(), 0, count, 1.0 / count);
+	}
+
+	/**
+	 * Measure particle
+	 * 
+	 * @param orientation
+	 * @param x
+	 * @param y
+	 * @return measurements of a particle
+	 */
+	public double[] measure(double orientation, double x, double y) {
+		return measure(orientation, x, y, new double[rayBeams.size()]);
+	}
+
+	/**
+	 * Measure particle into given array. Sensor noise is drawn from
+	 * {@link RandomStreams#SENSOR} stream of filter, so like
+	 * {@link #step(Odometry, double[])} it should not be called from several
+	 * threads at once
+	 * 
+	 * @param orientation
+	 * @param x
+	 * @param y
+	 * @param reading
+	 *            array measurements are written into, one per beam
+	 * @return reading
+	 */
+	public double[] measure(double orientation, double x, double y, double[] reading) {
+		return measure(orientation, x, y, reading, 0, null, 0, 1);
+	}
+
+	/**
+	 * Measure particle into given array, sensor noise is taken from a buffer
+	 * of standard normal values. Rays of all measured beams are cast in one
+	 * batch by {@link RayCaster#castRays(double, double, double, BeamSet, double[], int, double[], int)}
+	 * 
+	 * @param orientation
+	 * @param x
+	 * @param y
+	 * @param reading
+	 *            array measurements are written into
+	 * @param offset
+	 *            index of first measurement in reading
+	 * @param noise
+	 *            standard normal values, one per beam, null for drawing from
+	 *            sensor stream
+	 * @param noiseOffset
+	 *            index of first value in noise
+	 * @param stride
+	 *            every stride'th beam starting with first one is measured
+	 * @return reading
+	 */
+	private double[] measure(double orientation, double x, double y, double[] reading, int offset, double[] noise, int noiseOffset, int stride) {
+		double CX = x + SENSOR_OFFSET * Math.cos(orientation);
+		double CY = y + SENSOR_OFFSET * Math.sin(orientation);
+		double sensorNoise = stepConfig.getSensorNoise();
+
+		stepCaster.castRays(CX, CY, orientation, rayBeams, beamLengths, stride, reading, offset);
+
+		for (int i = 0, k = 0; i < beamLengths.length; i += stride, k++) {
+			double sensor = reading[offset + k];
+			double error = (noise == null ? gaussianSampler.next(sensorRandom) : noise[noiseOffset + k]) * sensorNoise;
+
+			if (sensor <= beamLengths[i]) {
+				sensor = sensor + error;
+			} else {
+				sensor = stepConfig.getSensorRange() + error;
+			}
+			reading[offset + k] = sensor;
+		}
+		return reading;
+	}
+
+	/**
+	 * Sums squared distances from end points of readings to nearest walls.
+	 * End points are beam directions rotated by orientation of particle, so
+	 * trigonometry is computed once per particle. Only weighted beams are
+	 * looked up. Readings within three
+	 * standard deviations of noise of sensor range are misses and are left
+	 * out
+	 * 
+	 * @param field
+	 * @param orientation
+	 * @param x
+	 * @param y
+	 * @param readings
+	 *            sensor readings of robot
+	 * @return sum of squared distances
+	 */
+	private double fieldSquares(LikelihoodField field, double orientation, double x, double y, double[] readings) {
+		double cos = Math.cos(orientation);
+		double sin = Math.sin(orientation);
+		double CX = x + SENSOR_OFFSET * cos;
+		double CY = y + SENSOR_OFFSET * sin;
+		double maxReading = stepConfig.getSensorRange() - 3 * stepConfig.getSensorNoise();
+
+		double squares = 0;
+		for (int j = 0; j < readings.length; j += beamStride) {
+			double range = readings[j];
+			if (range >= maxReading) {
+				continue;
+			}
+			double dx = rayBeams.getCos(j) * cos - rayBeams.getSin(j) * sin;
+			double dy = rayBeams.getSin(j) * cos + rayBeams.getCos(j) * sin;
+			squares += field.squaredDistance(CX + range * dx, CY + range * dy);
+		}
+		return squares;
+	}
+
+	/**
+	 * Sensor rays start from a point in front of particle and end sensor
+	 * range away from particle in direction of beam. Direction and length of
+	 * these rays relative to particle only depend on beam, so they are
+	 * computed once per sensor range and beam set. Buffers of blocks grow if
+	 * more beams are weighted
+	 * 
+	 * @param config
+	 */
+	private void computeBeams(FilterConfig config) {
+		BeamSet beams = config.getBeams();
+		double distance = config.getSensorRange() + SENSOR_OFFSET;
+		double[] angles = new double[beams.size()];
+		double[] lengths = new double[beams.size()];
+
+		for (int i = 0; i < angles.length; i++) {
+			double dx = distance * beams.getCos(i) - SENSOR_OFFSET;
+			double dy = distance * beams.getSin(i);
+
+			angles[i] = Math.atan2(dy, dx);
+			lengths[i] = Math.sqrt(dx * dx + dy * dy);
+		}
+
+		rayBeams = new BeamSet(angles);
+		beamLengths = lengths;
+		beamStride = beams.stride(config.getWeightBeams());
+		weightedBeams = beams.subsampled(config.getWeightBeams());
+		likelihoodNorm = Math.pow(1 / (MEASUREMENT_SIGMA * Math.sqrt(2.0 * Math.PI)), weightedBeams);
+
+		for (int i = 0; i < readingBuffers.length; i++) {
+			if (readingBuffers[i].length < BLOCK_SIZE * weightedBeams) {
+				readingBuffers[i] = new double[BLOCK_SIZE * weightedBeams];
+				noiseBuffers[i] = new double[BLOCK_SIZE * (3 + weightedBeams)];
+			}
+		}
+	}
+
+	/**
+	 * @return configuration of filter
+	 */
+	public FilterConfig getConfig() {
+		return config;
+	}
+
+	/**
+	 * Changes configuration from next step on. Can be called from any
+	 * thread. A new number of particles is reached at next step, which
+	 * resamples regardless of effective sample size, with KLD-sampling it is
+	 * ignored
+	 * 
+	 * @param config
+	 * @throws IllegalArgumentException
+	 *             if rays of sensor range are longer than range of ray
+	 *             caster of filter
+	 */
+	public synchronized void setConfig(FilterConfig config) {
+		checkRange(rayCaster, config);
+		this.config = config;
+	}
+
+	/**
+	 * Changes configuration and ray caster together from next step on, for a
+	 * sensor range current ray caster does not cover. Can be called from
+	 * any thread
+	 * 
+	 * @param config
+	 * @param rayCaster
+	 *            {@link RayCaster} used for measuring particles
+	 * @throws IllegalArgumentException
+	 *             if rays of sensor range are longer than range of ray
+	 *             caster
+	 */
+	public synchronized void setConfig(FilterConfig config, RayCaster rayCaster) {
+		checkRange(rayCaster, config);
+		this.rayCaster = rayCaster;
+		this.config = config;
+	}
+
+	/**
+	 * @return ray caster particles are measured with
+	 */
+	public RayCaster getRayCaster() {
+		return rayCaster;
+	}
+
+	/**
+	 * Rays of a configuration start in front of particle, so they are at most
+	 * sensor range plus twice offset of sensor long
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if ray caster is too short for configuration
+	 */
+	static void checkRange(RayCaster rayCaster, FilterConfig config) {
+		if (config.getSensorRange() + 2 * SENSOR_OFFSET > rayCaster.getRange()) {
+			throw new IllegalArgumentException("Sensor range " + config.getSensorRange() + " exceeds range of ray caster " + rayCaster.getRange() + ".");
+		}
+	}
+
+	/**
+	 * @return metrics of filter, null if it is not instrumented
+	 */
+	public FilterMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Instruments filter from next step on. Can be called from any thread
+	 * 
+	 * @param metrics
+	 *            {@link FilterMetrics} latencies and counters are recorded
+	 *            into, null for no instrumentation
+	 */
+	public void setMetrics(FilterMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return likelihood field particles are weighted with, null if they are
+	 *         weighted by ray casting
+	 */
+	public LikelihoodField getLikelihoodField() {
+		return likelihoodField;
+	}
+
+	/**
+	 * Changes sensor model from next step on. Can be called from any thread
+	 * 
+	 * @param likelihoodField
+	 *            {@link LikelihoodField} end points of readings are weighted
+	 *            with, null for ray casting every beam of every particle
+	 */
+	public void setLikelihoodField(LikelihoodField likelihoodField) {
+		this.likelihoodField = likelihoodField;
+	}
+
+	/**
+	 * @return seed of all random draws of filter
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Estimates memory held by filter. Particles, per particle and per block
+	 * buffers, {@link PoseEstimator} and {@link KldSampler} are counted, map
+	 * and ray caster are not since they can be shared between filters
+	 * 
+	 * @return bytes of arrays of filter
+	 */
+	public long getMemoryUsage() {
+		long bytes = particles.getMemoryUsage();
+		bytes += 8L * probs.length + 4L * indices.length;
+		bytes += 8L * blockNanos.length + 4L * blockRespawned.length;
+		for (int i = 0; i < randoms.length; i++) {
+			bytes += 8L * (readingBuffers[i].length + noiseBuffers[i].length + squareBuffers[i].length);
+		}
+		if (kldSampler != null) {
+			bytes += kldSampler.getMemoryUsage();
+		}
+		if (estimator != null) {
+			bytes += estimator.getMemoryUsage();
+		}
+		return bytes;
+	}
+
+	/**
+	 * @return current particles
+	 */
+	public ParticleSet getParticles() {
+		return particles;
+	}
+
+	/**
+	 * @return estimate of last step, null before first step or if filter has
+	 *         no estimator
+	 */
+	public PoseEstimate getEstimate() {
+		return estimate;
+	}
+
+	/**
+	 * @return {@link PoseEstimator} of filter, null if pose is not estimated
+	 */
+	public PoseEstimator getEstimator() {
+		return estimator;
+	}
+
+	/**
+	 * @param estimator
+	 *            {@link PoseEstimator} run before every resampling, null for
+	 *            no estimate
+	 */
+	public void setEstimator(PoseEstimator estimator) {
+		this.estimator = estimator;
+	}
+
+	/**
+	 * @return x coordinate of heaviest particle before last resampling
+	 */
+	public float getBestX() {
+		return bestX;
+	}
+
+	/**
+	 * @return y coordinate of heaviest particle before last resampling
+	 */
+	public float getBestY() {
+		return bestY;
+	}
+
+	/**
+	 * @return weight of heaviest particle before last resampling
+	 */
+	public double getBestWeight() {
+		return bestWeight;
+	}
+
+	/**
+	 * @return effective sample size of weights of last step, before
+	 *         resampling
+	 */
+	public double getEffectiveSampleSize() {
+		return effectiveSampleSize;
+	}
+
+	/**
+	 * @return true if particles were resampled at last step
+	 */
+	public boolean isResampled() {
+		return resampled;
+	}
+
+	/**
+	 * @return true if weights are computed in log space
+	 */
+	public boolean isLogWeighting() {
+		return logWeighting;
+	}
+
+	/**
+	 * Chooses how particle weights are computed. In log space likelihoods of
+	 * beams are summed and normalized with log-sum-exp, so weights never
+	 * underflow to zero however many beams are used. Otherwise gaussian
+	 * densities are multiplied as probabilities. Default is log space
+	 * 
+	 * @param logWeighting
+	 */
+	public void setLogWeighting(boolean logWeighting) {
+		this.logWeighting = logWeighting;
+	}
+
+	/**
+	 * @return {@link Resampler} of filter
+	 */
+	public Resampler getResampler() {
+		return resampler;
+	}
+
+	/**
+	 * @param resampler
+	 *            {@link Resampler} of filter, default is
+	 *            {@link SystematicResampler}
+	 */
+	public void setResampler(Resampler resampler) {
+		this.resampler = resampler;
+	}
+
+	/**
+	 * @return {@link KldSampler} of filter, null if number of particles is
+	 *         fixed
+	 */
+	public KldSampler getKldSampler() {
+		return kldSampler;
+	}
+
+	/**
+	 * @param kldSampler
+	 *            {@link KldSampler} adapting number of particles, null for
+	 *            fixed number of particles. Sampler must not be used by
+	 *            another filter, see {@link KldSampler#copy()}
+	 */
+	public void setKldSampler(KldSampler kldSampler) {
+		this.kldSampler = kldSampler;
+	}
+
+	/**
+	 * @return sampler of gaussian noise
+	 */
+	public GaussianSampler getGaussianSampler() {
+		return gaussianSampler;
+	}
+
+	/**
+	 * Changes how gaussian noise of motion and sensor models is drawn,
+	 * {@link ZigguratGaussianSampler} by default
+	 * 
+	 * @param gaussianSampler
+	 */
+	public void setGaussianSampler(GaussianSampler gaussianSampler) {
+		this.gaussianSampler = gaussianSampler;
+	}
+
+	/**
+	 * Stops worker threads of filter
+	 */
+	public void shutdown() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * @return {@link Room} robot is localized in
+	 */
+	public Room getRoom() {
+		return room;
+	}
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * Binary log of particle sets, written by {@link ParticleLogWriter} next to
+ * a {@link SensorLog} and read by {@link ParticleLogReader}. All numbers are
+ * little endian.
+ * <p>
+ * Header: magic, version, flags (ints), bounds of map as min x, min y, max x,
+ * max y (doubles).
+ * <p>
+ * A chunk follows header per recorded step, in increasing order of steps:
+ * step (long), number of
+ * particles (int) and a record of fixed width per particle. Records are x,
+ * y, orientation and weight as floats, or with {@link #QUANTIZED} flag x, y
+ * and orientation as 16 bit fixed point numbers over bounds of map and full
+ * circle and weight as float.
+ * <p>
+ * Closing writer appends an index of step and file offset of every chunk,
+ * followed by a trailer of index offset (long), number of chunks and magic
+ * (ints), so any step is found without reading chunks before it. Logs of
+ * writers which were not closed have no index and are scanned once when
+ * opened.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public final class ParticleLog {
+
+	static final int MAGIC = 0x504C434D;
+	static final int VERSION = 1;
+
+	/** coordinates and orientation are stored as 16 bit fixed point numbers */
+	public static final int QUANTIZED = 1;
+
+	static final int HEADER_SIZE = 3 * 4 + 4 * 8;
+	static final int CHUNK_HEADER_SIZE = 8 + 4;
+	static final int INDEX_ENTRY_SIZE = 8 + 8;
+	static final int TRAILER_SIZE = 8 + 4 + 4;
+
+	private ParticleLog() {
+	}
+
+	/**
+	 * @param flags
+	 * @return size of a particle record in bytes
+	 */
+	static int recordSize(int flags) {
+		return (flags & QUANTIZED) != 0 ? 3 * 2 + 4 : 4 * 4;
+	}
+
+	/**
+	 * @param value
+	 * @param min
+	 * @param max
+	 * @return value as 16 bit fixed point number between min and max
+	 */
+	static char quantize(double value, double min, double max) {
+		double scaled = Math.round((value - min) / (max - min) * Character.MAX_VALUE);
+		return (char) Math.max(0, Math.min(Character.MAX_VALUE, scaled));
+	}
+
+	/**
+	 * @param value
+	 *            16 bit fixed point number
+	 * @param min
+	 * @param max
+	 * @return value
+	 */
+	static double dequantize(char value, double min, double max) {
+		return min + value * (max - min) / Character.MAX_VALUE;
+	}
+}
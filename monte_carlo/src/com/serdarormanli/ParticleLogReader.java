@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads particle sets of a {@link ParticleLog} in any order. Chunks are found
+ * through index of log and memory mapped when read.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ParticleLogReader implements Closeable {
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+
+	private final int flags;
+	private final int recordSize;
+	private final double minX, minY, maxX, maxY;
+
+	private long[] steps;
+	private long[] offsets;
+	private int chunks;
+
+	/**
+	 * Opens a log
+	 * 
+	 * @param file
+	 * @throws IOException
+	 *             if file is not a particle log
+	 */
+	public ParticleLogReader(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+
+		try {
+			ByteBuffer header = read(0, ParticleLog.HEADER_SIZE);
+			if (header.getInt() != ParticleLog.MAGIC) {
+				throw new IOException("Not a particle log: " + file);
+			}
+			if (header.getInt() != ParticleLog.VERSION) {
+				throw new IOException("Unsupported version of particle log: " + file);
+			}
+			flags = header.getInt();
+			minX = header.getDouble();
+			minY = header.getDouble();
+			maxX = header.getDouble();
+			maxY = header.getDouble();
+			recordSize = ParticleLog.recordSize(flags);
+
+			if (!readIndex()) {
+				scan();
+			}
+		} catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+
+	private ByteBuffer read(long position, int size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Particle log is truncated");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/**
+	 * Reads index written when log was closed
+	 * 
+	 * @return false if log has no index
+	 */
+	private boolean readIndex() throws IOException {
+		long size = channel.size();
+		if (size < ParticleLog.HEADER_SIZE + ParticleLog.TRAILER_SIZE) {
+			return false;
+		}
+
+		ByteBuffer trailer = read(size - ParticleLog.TRAILER_SIZE, ParticleLog.TRAILER_SIZE);
+		long indexOffset = trailer.getLong();
+		int count = trailer.getInt();
+		if (trailer.getInt() != ParticleLog.MAGIC || indexOffset + (long) count * ParticleLog.INDEX_ENTRY_SIZE + ParticleLog.TRAILER_SIZE != size) {
+			return false;
+		}
+
+		ByteBuffer index = read(indexOffset, count * ParticleLog.INDEX_ENTRY_SIZE);
+		steps = new long[count];
+		offsets = new long[count];
+		for (int i = 0; i < count; i++) {
+			steps[i] = index.getLong();
+			offsets[i] = index.getLong();
+		}
+		chunks = count;
+		return true;
+	}
+
+	/**
+	 * Builds index by walking complete chunks of log
+	 */
+	private void scan() throws IOException {
+		steps = new long[64];
+		offsets = new long[64];
+		chunks = 0;
+
+		long size = channel.size();
+		long offset = ParticleLog.HEADER_SIZE;
+		while (offset + ParticleLog.CHUNK_HEADER_SIZE <= size) {
+			ByteBuffer header = read(offset, ParticleLog.CHUNK_HEADER_SIZE);
+			long step = header.getLong();
+			int count = header.getInt();
+			long end = offset + ParticleLog.CHUNK_HEADER_SIZE + (long) count * recordSize;
+			// an incomplete chunk or an incomplete index ends log
+			if (count < 0 || end > size || (chunks > 0 && step <= steps[chunks - 1])) {
+				break;
+			}
+
+			if (chunks == steps.length) {
+				steps = Arrays.copyOf(steps, 2 * chunks);
+				offsets = Arrays.copyOf(offsets, 2 * chunks);
+			}
+			steps[chunks] = step;
+			offsets[chunks] = offset;
+			chunks++;
+			offset = end;
+		}
+	}
+
+	/**
+	 * @return number of recorded particle sets
+	 */
+	public int getChunks() {
+		return chunks;
+	}
+
+	/**
+	 * @param chunk
+	 *            index of chunk
+	 * @return step of chunk
+	 */
+	public long getStep(int chunk) {
+		return steps[chunk];
+	}
+
+	/**
+	 * Finds chunk of a step
+	 * 
+	 * @param step
+	 * @return index of chunk, negative if step was not recorded
+	 */
+	public int find(long step) {
+		return Arrays.binarySearch(steps, 0, chunks, step);
+	}
+
+	/**
+	 * Reads particles of a chunk
+	 * 
+	 * @param chunk
+	 *            index of chunk
+	 * @param particles
+	 *            set particles are written into, it is grown when needed
+	 * @throws IOException
+	 */
+	public void read(int chunk, ParticleSet particles) throws IOException {
+		int size = read(offsets[chunk] + 8, 4).getInt();
+		MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offsets[chunk] + ParticleLog.CHUNK_HEADER_SIZE, (long) size * recordSize);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		particles.ensureCapacity(size);
+		particles.setSize(size);
+		float[] xs = particles.getX();
+		float[] ys = particles.getY();
+		float[] orientations = particles.getOrientation();
+		double[] weights = particles.getWeight();
+		boolean quantized = isQuantized();
+
+		for (int i = 0; i < size; i++) {
+			if (quantized) {
+				xs[i] = (float) ParticleLog.dequantize(buffer.getChar(), minX, maxX);
+				ys[i] = (float) ParticleLog.dequantize(buffer.getChar(), minY, maxY);
+				orientations[i] = (float) ParticleLog.dequantize(buffer.getChar(), -Math.PI, Math.PI);
+			} else {
+				xs[i] = buffer.getFloat();
+				ys[i] = buffer.getFloat();
+				orientations[i] = buffer.getFloat();
+			}
+			weights[i] = buffer.getFloat();
+		}
+	}
+
+	/**
+	 * @return true if particles are stored as 16 bit fixed point numbers
+	 */
+	public boolean isQuantized() {
+		return (flags & ParticleLog.QUANTIZED) != 0;
+	}
+
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
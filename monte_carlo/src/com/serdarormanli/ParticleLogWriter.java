@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Appends particle sets to a {@link ParticleLog}. Particles are put into a
+ * direct buffer written to channel whenever it is full, index of chunks is
+ * kept in memory until writer is closed.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ParticleLogWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int flags;
+	private final int recordSize;
+	private final double minX, minY, maxX, maxY;
+
+	private long written;
+	private long[] indexSteps = new long[64];
+	private long[] indexOffsets = new long[64];
+	private int chunks;
+
+	/**
+	 * Creates a new log, overwriting file
+	 * 
+	 * @param file
+	 * @param room
+	 *            map of particles, its bounds are used for quantization
+	 * @param flags
+	 *            {@link ParticleLog#QUANTIZED} or 0
+	 * @throws IOException
+	 */
+	public ParticleLogWriter(File file, Room room, int flags) throws IOException {
+		this.flags = flags;
+		this.recordSize = ParticleLog.recordSize(flags);
+		this.minX = room.getMinX();
+		this.minY = room.getMinY();
+		this.maxX = room.getMaxX();
+		this.maxY = room.getMaxY();
+		this.channel = new FileOutputStream(file).getChannel();
+		this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(ParticleLog.MAGIC);
+		buffer.putInt(ParticleLog.VERSION);
+		buffer.putInt(flags);
+		buffer.putDouble(minX);
+		buffer.putDouble(minY);
+		buffer.putDouble(maxX);
+		buffer.putDouble(maxY);
+	}
+
+	/**
+	 * Appends current particles as a chunk
+	 * 
+	 * @param step
+	 *            step particles belong to, bigger than step of previous
+	 *            chunk
+	 * @param particles
+	 * @throws IOException
+	 */
+	public void write(long step, ParticleSet particles) throws IOException {
+		if (chunks == indexSteps.length) {
+			indexSteps = Arrays.copyOf(indexSteps, 2 * chunks);
+			indexOffsets = Arrays.copyOf(indexOffsets, 2 * chunks);
+		}
+		indexSteps[chunks] = step;
+		indexOffsets[chunks] = written + buffer.position();
+		chunks++;
+
+		int size = particles.size();
+		float[] xs = particles.getX();
+		float[] ys = particles.getY();
+		float[] orientations = particles.getOrientation();
+		double[] weights = particles.getWeight();
+		boolean quantized = (flags & ParticleLog.QUANTIZED) != 0;
+
+		ensureRemaining(ParticleLog.CHUNK_HEADER_SIZE);
+		buffer.putLong(step);
+		buffer.putInt(size);
+
+		int i = 0;
+		while (i < size) {
+			ensureRemaining(recordSize);
+			int end = Math.min(size, i + buffer.remaining() / recordSize);
+			if (quantized) {
+				for (; i < end; i++) {
+					buffer.putChar(ParticleLog.quantize(xs[i], minX, maxX));
+					buffer.putChar(ParticleLog.quantize(ys[i], minY, maxY));
+					buffer.putChar(ParticleLog.quantize(orientations[i], -Math.PI, Math.PI));
+					buffer.putFloat((float) weights[i]);
+				}
+			} else {
+				for (; i < end; i++) {
+					buffer.putFloat(xs[i]);
+					buffer.putFloat(ys[i]);
+					buffer.putFloat(orientations[i]);
+					buffer.putFloat((float) weights[i]);
+				}
+			}
+		}
+	}
+
+	private void ensureRemaining(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+
+	/**
+	 * Writes buffered particles to file
+	 * 
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			written += channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Writes index and closes file
+	 * 
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			long indexOffset = written + buffer.position();
+			for (int i = 0; i < chunks; i++) {
+				ensureRemaining(ParticleLog.INDEX_ENTRY_SIZE);
+				buffer.putLong(indexSteps[i]);
+				buffer.putLong(indexOffsets[i]);
+			}
+			ensureRemaining(ParticleLog.TRAILER_SIZE);
+			buffer.putLong(indexOffset);
+			buffer.putInt(chunks);
+			buffer.putInt(ParticleLog.MAGIC);
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
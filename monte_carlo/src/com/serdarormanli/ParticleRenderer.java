@@ -0,0 +1,188 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Draws particles into an ARGB pixel buffer, like pixels of a Processing
+ * PImage, so viewer draws one image per frame instead of a shape per
+ * particle. Besides every particle, a capped subset of particles or a
+ * weighted density heatmap can be drawn, their cost of drawing does not
+ * grow with number of particles.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ParticleRenderer {
+
+	/** every particle as a dot */
+	public static final int ALL = 0;
+	/** at most maxPoints particles picked at random as dots */
+	public static final int SUBSET = 1;
+	/** sum of weights of particles in every cell of image */
+	public static final int HEATMAP = 2;
+
+	private static final int DOT = 3;
+	private static final int RED = 0xFFFF0000;
+
+	private final int width, height;
+	private final int columns, rows;
+	private final double[] density;
+	private final Random random;
+
+	private int mode = ALL;
+	private int maxPoints;
+
+	/**
+	 * @param width
+	 *            width of image
+	 * @param height
+	 *            height of image
+	 * @param maxPoints
+	 *            number of particles drawn in {@link #SUBSET} mode
+	 * @param random
+	 *            generator subset is picked with
+	 */
+	public ParticleRenderer(int width, int height, int maxPoints, Random random) {
+		this.width = width;
+		this.height = height;
+		this.columns = (width + DOT - 1) / DOT;
+		this.rows = (height + DOT - 1) / DOT;
+		this.density = new double[columns * rows];
+		this.random = random;
+		setMaxPoints(maxPoints);
+	}
+
+	/**
+	 * Draws particles over a transparent image
+	 * 
+	 * @param particles
+	 *            {@link ParticleSet} to draw
+	 * @param pixels
+	 *            ARGB pixels of image, row by row
+	 */
+	public void render(ParticleSet particles, int[] pixels) {
+		Arrays.fill(pixels, 0, width * height, 0);
+
+		int size = particles.size();
+		if (mode == HEATMAP) {
+			renderHeatmap(particles, pixels);
+		} else if (mode == SUBSET && size > maxPoints) {
+			// systematic pick with random start keeps picked particles
+			// spread over whole set
+			double step = (double) size / maxPoints;
+			double position = random.nextDouble() * step;
+			for (int i = 0; i < maxPoints; i++) {
+				dot(particles, (int) position, pixels);
+				position += step;
+			}
+		} else {
+			for (int i = 0; i < size; i++) {
+				dot(particles, i, pixels);
+			}
+		}
+	}
+
+	/**
+	 * Draws a square dot centered at particle
+	 */
+	private void dot(ParticleSet particles, int i, int[] pixels) {
+		int x = (int) particles.getX()[i] - DOT / 2;
+		int y = (int) particles.getY()[i] - DOT / 2;
+
+		for (int row = Math.max(0, y); row < Math.min(height, y + DOT); row++) {
+			for (int column = Math.max(0, x); column < Math.min(width, x + DOT); column++) {
+				pixels[row * width + column] = RED;
+			}
+		}
+	}
+
+	/**
+	 * Sums weights of particles per cell and draws cells with alpha growing
+	 * with square root of their share of heaviest cell, so low density
+	 * areas stay visible
+	 */
+	private void renderHeatmap(ParticleSet particles, int[] pixels) {
+		float[] xs = particles.getX();
+		float[] ys = particles.getY();
+		double[] weights = particles.getWeight();
+
+		Arrays.fill(density, 0);
+		double max = 0;
+		for (int i = 0; i < particles.size(); i++) {
+			int column = (int) (xs[i] / DOT);
+			int row = (int) (ys[i] / DOT);
+			if (xs[i] >= 0 && ys[i] >= 0 && column < columns && row < rows) {
+				int cell = row * columns + column;
+				density[cell] += weights[i];
+				max = Math.max(max, density[cell]);
+			}
+		}
+
+		if (!(max > 0)) {
+			return;
+		}
+
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				double value = density[row * columns + column];
+				if (value > 0) {
+					int alpha = Math.max(32, (int) (255 * Math.sqrt(value / max)));
+					fill(column * DOT, row * DOT, (alpha << 24) | (RED & 0xFFFFFF), pixels);
+				}
+			}
+		}
+	}
+
+	private void fill(int x, int y, int color, int[] pixels) {
+		for (int row = y; row < Math.min(height, y + DOT); row++) {
+			Arrays.fill(pixels, row * width + x, row * width + Math.min(width, x + DOT), color);
+		}
+	}
+
+	/**
+	 * @return one of {@link #ALL}, {@link #SUBSET}, {@link #HEATMAP}
+	 */
+	public int getMode() {
+		return mode;
+	}
+
+	/**
+	 * @param mode
+	 *            one of {@link #ALL}, {@link #SUBSET}, {@link #HEATMAP}
+	 */
+	public void setMode(int mode) {
+		if (mode < ALL || mode > HEATMAP) {
+			throw new IllegalArgumentException("Unknown render mode: " + mode);
+		}
+		this.mode = mode;
+	}
+
+	/**
+	 * @return number of particles drawn in {@link #SUBSET} mode
+	 */
+	public int getMaxPoints() {
+		return maxPoints;
+	}
+
+	/**
+	 * @param maxPoints
+	 *            number of particles drawn in {@link #SUBSET} mode
+	 */
+	public void setMaxPoints(int maxPoints) {
+		if (maxPoints < 1) {
+			throw new IllegalArgumentException("Number of drawn particles must be positive.");
+		}
+		this.maxPoints = maxPoints;
+	}
+}
@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+
+/**
+ * Particles stored as parallel primitive arrays. Every column has a second
+ * buffer which resampling writes into, so a filter step does not allocate.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ParticleSet {
+	private float[] x, y, orientation;
+	private double[] weight;
+
+	private float[] nextX, nextY, nextOrientation;
+	private double[] nextWeight;
+
+	private int size;
+
+	/**
+	 * @param size
+	 *            number of particles
+	 */
+	public ParticleSet(int size) {
+		this.size = size;
+		x = new float[size];
+		y = new float[size];
+		orientation = new float[size];
+		weight = new double[size];
+		nextX = new float[size];
+		nextY = new float[size];
+		nextOrientation = new float[size];
+		nextWeight = new double[size];
+	}
+
+	/**
+	 * @return number of particles
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Changes number of particles, arrays are not shrunk
+	 * 
+	 * @param size
+	 *            number of particles, at most {@link #capacity()}
+	 */
+	public void setSize(int size) {
+		if (size < 0 || size > x.length) {
+			throw new IllegalArgumentException("Size must be between 0 and capacity.");
+		}
+		this.size = size;
+	}
+
+	/**
+	 * @return number of particles arrays can hold
+	 */
+	public int capacity() {
+		return x.length;
+	}
+
+	/**
+	 * @return bytes of arrays of both buffers
+	 */
+	public long getMemoryUsage() {
+		return 2L * x.length * (3 * 4 + 8);
+	}
+
+	/**
+	 * Grows arrays of both buffers, keeping particles of current buffer
+	 * 
+	 * @param capacity
+	 *            number of particles arrays should hold
+	 */
+	public void ensureCapacity(int capacity) {
+		if (capacity <= x.length) {
+			return;
+		}
+
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		orientation = Arrays.copyOf(orientation, capacity);
+		weight = Arrays.copyOf(weight, capacity);
+		nextX = new float[capacity];
+		nextY = new float[capacity];
+		nextOrientation = new float[capacity];
+		nextWeight = new double[capacity];
+	}
+
+	/**
+	 * Sets particle at index
+	 * 
+	 * @param i
+	 *            index of particle
+	 * @param x
+	 * @param y
+	 * @param orientation
+	 * @param weight
+	 */
+	public void set(int i, float x, float y, float orientation, double weight) {
+		this.x[i] = x;
+		this.y[i] = y;
+		this.orientation[i] = orientation;
+		this.weight[i] = weight;
+	}
+
+	/**
+	 * Copies particle from current buffer into next buffer. Used by resampling
+	 * 
+	 * @param from
+	 *            index in current buffer
+	 * @param to
+	 *            index in next buffer
+	 */
+	public void copyToNext(int from, int to) {
+		nextX[to] = x[from];
+		nextY[to] = y[from];
+		nextOrientation[to] = orientation[from];
+		nextWeight[to] = weight[from];
+	}
+
+	/**
+	 * Makes next buffer current. Old current buffer is reused as next buffer
+	 */
+	public void swap() {
+		float[] tx = x;
+		x = nextX;
+		nextX = tx;
+
+		float[] ty = y;
+		y = nextY;
+		nextY = ty;
+
+		float[] to = orientation;
+		orientation = nextOrientation;
+		nextOrientation = to;
+
+		double[] tw = weight;
+		weight = nextWeight;
+		nextWeight = tw;
+	}
+
+	/**
+	 * @return x coordinates of current buffer, only first {@link #size()}
+	 *         are particles
+	 */
+	public float[] getX() {
+		return x;
+	}
+
+	/**
+	 * @return y coordinates of current buffer
+	 */
+	public float[] getY() {
+		return y;
+	}
+
+	/**
+	 * @return orientations of current buffer
+	 */
+	public float[] getOrientation() {
+		return orientation;
+	}
+
+	/**
+	 * @return weights of current buffer
+	 */
+	public double[] getWeight() {
+		return weight;
+	}
+}
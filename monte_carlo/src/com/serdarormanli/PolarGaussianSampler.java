@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Marsaglia polar method, same method as {@link Util#getNoise(double)}.
+ * Needs a logarithm, a square root and on average 2.5 uniform draws per
+ * value.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class PolarGaussianSampler implements GaussianSampler {
+
+	/**
+	 * @see com.serdarormanli.GaussianSampler#next(java.util.Random)
+	 */
+	@Override
+	public double next(Random random) {
+		double r, x, y;
+
+		do {
+			x = 2.0 * random.nextDouble() - 1.0;
+			y = 2.0 * random.nextDouble() - 1.0;
+			r = x * x + y * y;
+		} while (r > 1 || r == 0);
+
+		return x * Math.sqrt(-2.0 * Math.log(r) / r);
+	}
+
+	/**
+	 * @see com.serdarormanli.GaussianSampler#fill(java.util.Random, double[],
+	 *      int, int)
+	 */
+	@Override
+	public void fill(Random random, double[] buffer, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			buffer[i] = next(random);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * Immutable pose estimate of a {@link ParticleFilter} step, computed by
+ * {@link PoseEstimator}. Mean and covariance describe whole particle set,
+ * modes are weighted clusters of particles, heaviest first. More than one
+ * mode means belief is multimodal and mean may lie between clusters.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public final class PoseEstimate {
+
+	private final double x, y, orientation;
+	private final double varianceX, varianceY, covarianceXY;
+	private final double orientationSpread;
+	private final double[] modeX, modeY, modeOrientation, modeWeight;
+
+	/**
+	 * @param x
+	 *            weighted mean of x
+	 * @param y
+	 *            weighted mean of y
+	 * @param orientation
+	 *            weighted circular mean of orientation
+	 * @param varianceX
+	 * @param varianceY
+	 * @param covarianceXY
+	 * @param orientationSpread
+	 *            circular variance of orientation
+	 * @param modeX
+	 *            x of modes, array is not copied
+	 * @param modeY
+	 *            y of modes, array is not copied
+	 * @param modeOrientation
+	 *            orientation of modes, array is not copied
+	 * @param modeWeight
+	 *            share of weight of modes, array is not copied
+	 */
+	PoseEstimate(double x, double y, double orientation, double varianceX, double varianceY, double covarianceXY, double orientationSpread, double[] modeX, double[] modeY, double[] modeOrientation, double[] modeWeight) {
+		this.x = x;
+		this.y = y;
+		this.orientation = orientation;
+		this.varianceX = varianceX;
+		this.varianceY = varianceY;
+		this.covarianceXY = covarianceXY;
+		this.orientationSpread = orientationSpread;
+		this.modeX = modeX;
+		this.modeY = modeY;
+		this.modeOrientation = modeOrientation;
+		this.modeWeight = modeWeight;
+	}
+
+	/**
+	 * @return weighted mean of x coordinates
+	 */
+	public double getX() {
+		return x;
+	}
+
+	/**
+	 * @return weighted mean of y coordinates
+	 */
+	public double getY() {
+		return y;
+	}
+
+	/**
+	 * @return weighted circular mean of orientations in radians
+	 */
+	public double getOrientation() {
+		return orientation;
+	}
+
+	/**
+	 * @return weighted variance of x coordinates
+	 */
+	public double getVarianceX() {
+		return varianceX;
+	}
+
+	/**
+	 * @return weighted variance of y coordinates
+	 */
+	public double getVarianceY() {
+		return varianceY;
+	}
+
+	/**
+	 * @return weighted covariance of x and y coordinates
+	 */
+	public double getCovarianceXY() {
+		return covarianceXY;
+	}
+
+	/**
+	 * @return circular variance of orientations, 0 if all particles point to
+	 *         same direction and 1 if they cancel each other out
+	 */
+	public double getOrientationSpread() {
+		return orientationSpread;
+	}
+
+	/**
+	 * @return number of modes
+	 */
+	public int getModes() {
+		return modeWeight.length;
+	}
+
+	/**
+	 * @param mode
+	 *            index of mode, 0 for heaviest
+	 * @return weighted mean x of mode
+	 */
+	public double getModeX(int mode) {
+		return modeX[mode];
+	}
+
+	/**
+	 * @param mode
+	 *            index of mode, 0 for heaviest
+	 * @return weighted mean y of mode
+	 */
+	public double getModeY(int mode) {
+		return modeY[mode];
+	}
+
+	/**
+	 * @param mode
+	 *            index of mode, 0 for heaviest
+	 * @return weighted circular mean orientation of mode
+	 */
+	public double getModeOrientation(int mode) {
+		return modeOrientation[mode];
+	}
+
+	/**
+	 * @param mode
+	 *            index of mode, 0 for heaviest
+	 * @return share of total weight held by mode
+	 */
+	public double getModeWeight(int mode) {
+		return modeWeight[mode];
+	}
+}
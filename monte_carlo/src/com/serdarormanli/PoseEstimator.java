@@ -0,0 +1,271 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+
+/**
+ * Computes {@link PoseEstimate} of particles in one pass over particle
+ * arrays. Weighted sums of position, squared position and unit vectors of
+ * orientation give mean, covariance and circular mean. Same pass adds
+ * weights into a grid of square cells over bounds of room, cells which are
+ * heavier than their eight neighbours are modes, a mode is weighted mean of
+ * its cell and neighbours.
+ * <p>
+ * Only cells touched by particles are cleared and searched, so cost after
+ * the pass does not grow with size of room. Estimator is not thread safe.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class PoseEstimator {
+
+	/** size of a cell used by {@link #PoseEstimator(Room)} */
+	public static final double DEFAULT_CELL_SIZE = 20;
+	/** share of weight a mode needs, used by {@link #PoseEstimator(Room)} */
+	public static final double DEFAULT_MIN_MODE_WEIGHT = 0.05;
+	/** number of reported modes, used by {@link #PoseEstimator(Room)} */
+	public static final int DEFAULT_MAX_MODES = 8;
+
+	private static final int SUMS = 5;
+
+	private final double originX, originY, cellSize;
+	private final int columns, rows;
+	private final double minModeWeight;
+	private final int maxModes;
+
+	// weight, weighted x, y, cos and sin of orientation per cell
+	private final double[] cells;
+	private final int[] touched;
+	private int touchedCount;
+
+	private final int[] modeCells;
+	private final double[] modeWeights;
+
+	/**
+	 * Creates estimator with default cell size and mode thresholds
+	 * 
+	 * @param room
+	 *            {@link Room} particles are in
+	 */
+	public PoseEstimator(Room room) {
+		this(room, DEFAULT_CELL_SIZE, DEFAULT_MIN_MODE_WEIGHT, DEFAULT_MAX_MODES);
+	}
+
+	/**
+	 * @param room
+	 *            {@link Room} particles are in
+	 * @param cellSize
+	 *            size of a square cell of mode grid
+	 * @param minModeWeight
+	 *            share of total weight a mode needs to be reported
+	 * @param maxModes
+	 *            largest number of reported modes
+	 */
+	public PoseEstimator(Room room, double cellSize, double minModeWeight, int maxModes) {
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException("Cell size must be positive.");
+		}
+		if (maxModes < 1) {
+			throw new IllegalArgumentException("Number of modes must be positive.");
+		}
+
+		this.originX = room.getMinX();
+		this.originY = room.getMinY();
+		this.cellSize = cellSize;
+		this.columns = (int) ((room.getMaxX() - originX) / cellSize) + 1;
+		this.rows = (int) ((room.getMaxY() - originY) / cellSize) + 1;
+		this.minModeWeight = minModeWeight;
+		this.maxModes = maxModes;
+
+		long count = (long) columns * rows;
+		if (count * SUMS > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Cell size is too small for room.");
+		}
+		this.cells = new double[(int) count * SUMS];
+		this.touched = new int[(int) count];
+		this.modeCells = new int[maxModes];
+		this.modeWeights = new double[maxModes];
+	}
+
+	/**
+	 * @return bytes of mode grid and buffers of estimator
+	 */
+	public long getMemoryUsage() {
+		return 8L * cells.length + 4L * touched.length + 4L * modeCells.length + 8L * modeWeights.length;
+	}
+
+	/**
+	 * Estimates pose of particles
+	 * 
+	 * @param particles
+	 *            {@link ParticleSet} with weights of current buffer
+	 * @return estimate, null if there are no particles or all weights are
+	 *         zero
+	 */
+	public PoseEstimate estimate(ParticleSet particles) {
+		int N = particles.size();
+		float[] xs = particles.getX();
+		float[] ys = particles.getY();
+		float[] orientations = particles.getOrientation();
+		double[] weights = particles.getWeight();
+
+		if (N == 0) {
+			return null;
+		}
+
+		for (int i = 0; i < touchedCount; i++) {
+			Arrays.fill(cells, touched[i] * SUMS, touched[i] * SUMS + SUMS, 0);
+		}
+		touchedCount = 0;
+
+		// positions are summed relative to first particle, so squares of
+		// large coordinates do not cancel out precision of variance
+		double x0 = xs[0], y0 = ys[0];
+		double w = 0, sx = 0, sy = 0, sxx = 0, syy = 0, sxy = 0, sc = 0, ss = 0;
+
+		for (int i = 0; i < N; i++) {
+			double weight = weights[i];
+			double dx = xs[i] - x0;
+			double dy = ys[i] - y0;
+			double cos = Math.cos(orientations[i]);
+			double sin = Math.sin(orientations[i]);
+
+			w += weight;
+			sx += weight * dx;
+			sy += weight * dy;
+			sxx += weight * dx * dx;
+			syy += weight * dy * dy;
+			sxy += weight * dx * dy;
+			sc += weight * cos;
+			ss += weight * sin;
+
+			int column = Math.max(0, Math.min(columns - 1, (int) ((xs[i] - originX) / cellSize)));
+			int row = Math.max(0, Math.min(rows - 1, (int) ((ys[i] - originY) / cellSize)));
+			int cell = row * columns + column;
+			int base = cell * SUMS;
+			if (cells[base] == 0 && weight > 0) {
+				touched[touchedCount++] = cell;
+			}
+			cells[base] += weight;
+			cells[base + 1] += weight * dx;
+			cells[base + 2] += weight * dy;
+			cells[base + 3] += weight * cos;
+			cells[base + 4] += weight * sin;
+		}
+
+		if (!(w > 0)) {
+			return null;
+		}
+
+		double meanX = sx / w;
+		double meanY = sy / w;
+		double resultant = Math.sqrt(sc * sc + ss * ss) / w;
+
+		int modes = findModes(w);
+		double[] modeX = new double[modes];
+		double[] modeY = new double[modes];
+		double[] modeOrientation = new double[modes];
+		double[] modeWeight = new double[modes];
+		for (int m = 0; m < modes; m++) {
+			int column = modeCells[m] % columns;
+			int row = modeCells[m] / columns;
+			double mw = 0, mx = 0, my = 0, mc = 0, ms = 0;
+			for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+				for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+					int base = (r * columns + c) * SUMS;
+					mw += cells[base];
+					mx += cells[base + 1];
+					my += cells[base + 2];
+					mc += cells[base + 3];
+					ms += cells[base + 4];
+				}
+			}
+			modeX[m] = x0 + mx / mw;
+			modeY[m] = y0 + my / mw;
+			modeOrientation[m] = Math.atan2(ms, mc);
+			modeWeight[m] = mw / w;
+		}
+
+		return new PoseEstimate(x0 + meanX, y0 + meanY, Math.atan2(ss, sc), Math.max(0, sxx / w - meanX * meanX), Math.max(0, syy / w - meanY * meanY), sxy / w - meanX * meanY, 1 - resultant, modeX,
+				modeY, modeOrientation, modeWeight);
+	}
+
+	/**
+	 * Finds heaviest touched cells which are local maxima of grid and hold
+	 * enough weight with their neighbours
+	 * 
+	 * @param total
+	 *            sum of all weights
+	 * @return number of modes written into modeCells, heaviest first
+	 */
+	private int findModes(double total) {
+		int modes = 0;
+
+		for (int i = 0; i < touchedCount; i++) {
+			int cell = touched[i];
+			if (!isLocalMaximum(cell)) {
+				continue;
+			}
+
+			double weight = neighbourhoodWeight(cell);
+			if (weight < minModeWeight * total || (modes == maxModes && weight <= modeWeights[modes - 1])) {
+				continue;
+			}
+
+			// insertion into list sorted by weight
+			int j = modes < maxModes ? modes++ : modes - 1;
+			while (j > 0 && modeWeights[j - 1] < weight) {
+				modeWeights[j] = modeWeights[j - 1];
+				modeCells[j] = modeCells[j - 1];
+				j--;
+			}
+			modeWeights[j] = weight;
+			modeCells[j] = cell;
+		}
+
+		return modes;
+	}
+
+	/**
+	 * Ties between neighbours are broken by index, so a plateau gives a
+	 * single mode
+	 */
+	private boolean isLocalMaximum(int cell) {
+		int column = cell % columns;
+		int row = cell / columns;
+		double weight = cells[cell * SUMS];
+
+		for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+			for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+				int other = r * columns + c;
+				double neighbour = cells[other * SUMS];
+				if (neighbour > weight || (neighbour == weight && other < cell)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private double neighbourhoodWeight(int cell) {
+		int column = cell % columns;
+		int row = cell / columns;
+		double weight = 0;
+
+		for (int r = Math.max(0, row - 1); r <= Math.min(rows - 1, row + 1); r++) {
+			for (int c = Math.max(0, column - 1); c <= Math.min(columns - 1, column + 1); c++) {
+				weight += cells[(r * columns + c) * SUMS];
+			}
+		}
+		return weight;
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * Seeds of independent random streams of a run. Every consumer of random
+ * numbers draws from its own stream derived from seed of run, stream id and
+ * position (step, block) in stream, so a run with same seed draws same
+ * numbers regardless of threads, timing or order consumers are created.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public final class RandomStreams {
+
+	/** initial particles of filter */
+	public static final long PARTICLES = 1;
+	/** motion and sensor noise of particles, per step and block */
+	public static final long MOTION = 2;
+	/** resampling, per step */
+	public static final long RESAMPLE = 3;
+	/** sensor noise of measurements requested from filter */
+	public static final long SENSOR = 4;
+	/** sensor noise of simulated robot */
+	public static final long ROBOT = 5;
+	/** random robot positions chosen in viewer */
+	public static final long VIEWER = 6;
+	/** particles picked for drawing in viewer */
+	public static final long RENDER = 7;
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private RandomStreams() {
+	}
+
+	/**
+	 * Seed of a position in a stream
+	 * 
+	 * @param seed
+	 *            seed of run
+	 * @param stream
+	 *            id of stream
+	 * @param step
+	 *            step of filter, 0 for streams not restarted every step
+	 * @param index
+	 *            index of block in step
+	 * @return seed
+	 */
+	public static long seed(long seed, long stream, long step, long index) {
+		return mix(mix(seed + stream * GOLDEN_GAMMA) + step * GOLDEN_GAMMA + index);
+	}
+
+	/**
+	 * Creates generator of a stream
+	 * 
+	 * @param seed
+	 *            seed of run
+	 * @param stream
+	 *            id of stream
+	 * @return generator
+	 */
+	public static SplitMixRandom create(long seed, long stream) {
+		return new SplitMixRandom(seed(seed, stream, 0, 0));
+	}
+
+	/**
+	 * Scrambles bits of a seed, so seeds of neighbouring blocks and steps
+	 * give unrelated streams
+	 * 
+	 * @param z
+	 * @return mixed seed
+	 */
+	static long mix(long z) {
+		z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+		z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return z ^ (z >>> 33);
+	}
+}
@@ -0,0 +1,302 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Precomputed ray cast lookup table. Map is divided into square cells and
+ * full circle into angle bins, range of ray cast from center of every cell
+ * in every bin is stored as a 16 bit fixed point number. Casting a ray is a
+ * single table lookup, precision is limited by cell size and bin width.
+ * <p>
+ * Table can be saved to disk and memory mapped back, so it is computed only
+ * once per map. Rays starting outside bounding box of map are misses.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class RayCastTable implements RayCaster {
+
+	private static final int MAGIC = 0x4D434C52;
+	private static final int VERSION = 2;
+	private static final int HEADER_SIZE = 6 * 4 + 4 * 8;
+
+	private static final char MISS = Character.MAX_VALUE;
+
+	private final int columns, rows, bins;
+	private final double originX, originY, cellSize, range;
+	private final int checksum;
+
+	private final double scale;
+	private final double binsPerRadian;
+	private final CharBuffer table;
+
+	private RayCastTable(int columns, int rows, int bins, double originX, double originY, double cellSize, double range, int checksum, CharBuffer table) {
+		this.columns = columns;
+		this.rows = rows;
+		this.bins = bins;
+		this.originX = originX;
+		this.originY = originY;
+		this.cellSize = cellSize;
+		this.range = range;
+		this.checksum = checksum;
+		this.table = table;
+		this.scale = range / (MISS - 1);
+		this.binsPerRadian = bins / (2 * Math.PI);
+	}
+
+	/**
+	 * Computes table of a room
+	 * 
+	 * @param room
+	 *            {@link Room} to compute
+	 * @param cellSize
+	 *            size of a square cell
+	 * @param bins
+	 *            number of angle bins in full circle
+	 * @param range
+	 *            longest range stored, longer rays are stored as misses
+	 * @return table
+	 */
+	public static RayCastTable build(Room room, double cellSize, int bins, double range) {
+		double originX = room.getMinX();
+		double originY = room.getMinY();
+		int columns = (int) Math.ceil((room.getMaxX() - originX) / cellSize) + 1;
+		int rows = (int) Math.ceil((room.getMaxY() - originY) / cellSize) + 1;
+
+		CharBuffer table = CharBuffer.allocate(size(columns, rows, bins));
+		RayCastTable result = new RayCastTable(columns, rows, bins, originX, originY, cellSize, range, checksum(room, cellSize, bins, range), table);
+		result.fill(room);
+		return result;
+	}
+
+	/**
+	 * Memory maps table of room from file. If file does not exist or it was
+	 * computed for another room or parameters, table is computed and saved to
+	 * file first
+	 * 
+	 * @param file
+	 *            cache file of table
+	 * @param room
+	 *            {@link Room} to compute
+	 * @param cellSize
+	 *            size of a square cell
+	 * @param bins
+	 *            number of angle bins in full circle
+	 * @param range
+	 *            longest range stored
+	 * @return memory mapped table
+	 * @throws IOException
+	 */
+	public static RayCastTable load(File file, Room room, double cellSize, int bins, double range) throws IOException {
+		if (!file.exists() || readChecksum(file) != checksum(room, cellSize, bins, range)) {
+			build(room, cellSize, bins, range).save(file);
+		}
+		return map(file);
+	}
+
+	/**
+	 * Memory maps a table saved by {@link #save(File)}
+	 * 
+	 * @param file
+	 * @return memory mapped table
+	 * @throws IOException
+	 */
+	public static RayCastTable map(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		int columns, rows, bins, checksum;
+		double originX, originY, cellSize, range;
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a ray cast table: " + file);
+			}
+			checksum = in.readInt();
+			columns = in.readInt();
+			rows = in.readInt();
+			bins = in.readInt();
+			originX = in.readDouble();
+			originY = in.readDouble();
+			cellSize = in.readDouble();
+			range = in.readDouble();
+		} finally {
+			in.close();
+		}
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			CharBuffer table = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 2L * size(columns, rows, bins)).asCharBuffer();
+			return new RayCastTable(columns, rows, bins, originX, originY, cellSize, range, checksum, table);
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Saves table to file
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(checksum);
+			out.writeInt(columns);
+			out.writeInt(rows);
+			out.writeInt(bins);
+			out.writeDouble(originX);
+			out.writeDouble(originY);
+			out.writeDouble(cellSize);
+			out.writeDouble(range);
+			for (int i = 0; i < table.limit(); i++) {
+				out.writeChar(table.get(i));
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * @see com.serdarormanli.RayCaster#castRay(double, double, double, double)
+	 */
+	@Override
+	public double castRay(double x, double y, double angle, double maxRange) {
+		int column = (int) ((x - originX) / cellSize + 0.5);
+		int row = (int) ((y - originY) / cellSize + 0.5);
+		if (column < 0 || row < 0 || column >= columns || row >= rows) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		int bin = (int) Math.floor(angle * binsPerRadian + 0.5) % bins;
+		if (bin < 0) {
+			bin += bins;
+		}
+
+		char value = table.get((row * columns + column) * bins + bin);
+		if (value == MISS) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double distance = value * scale;
+		return distance <= maxRange ? distance : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Table needs only angles of beams, cell of start point is looked up
+	 * once for all rays
+	 * 
+	 * @see com.serdarormanli.RayCaster#castRays(double, double, double,
+	 *      BeamSet, double[], int, double[], int)
+	 */
+	@Override
+	public void castRays(double x, double y, double heading, BeamSet beams, double[] maxRanges, int stride, double[] ranges, int offset) {
+		int column = (int) ((x - originX) / cellSize + 0.5);
+		int row = (int) ((y - originY) / cellSize + 0.5);
+		if (column < 0 || row < 0 || column >= columns || row >= rows) {
+			for (int i = 0, k = offset; i < beams.size(); i += stride, k++) {
+				ranges[k] = Double.POSITIVE_INFINITY;
+			}
+			return;
+		}
+
+		int base = (row * columns + column) * bins;
+		for (int i = 0, k = offset; i < beams.size(); i += stride, k++) {
+			int bin = (int) Math.floor((heading + beams.getAngle(i)) * binsPerRadian + 0.5) % bins;
+			if (bin < 0) {
+				bin += bins;
+			}
+
+			char value = table.get(base + bin);
+			double distance = value * scale;
+			ranges[k] = value != MISS && distance <= maxRanges[i] ? distance : Double.POSITIVE_INFINITY;
+		}
+	}
+
+	/**
+	 * Number of entries of a table, table is mapped as a single buffer so it
+	 * can have at most {@link Integer#MAX_VALUE} bytes
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if table is too large
+	 */
+	private static int size(int columns, int rows, int bins) {
+		long size = (long) columns * rows * bins;
+		if (size > Integer.MAX_VALUE / 2) {
+			throw new IllegalArgumentException("Ray cast table of " + columns + "x" + rows + " cells and " + bins + " bins is too large, use larger cells or fewer bins.");
+		}
+		return (int) size;
+	}
+
+	/**
+	 * Rays longer than range of table are misses
+	 * 
+	 * @see com.serdarormanli.RayCaster#getRange()
+	 */
+	@Override
+	public double getRange() {
+		return range;
+	}
+
+	/**
+	 * Casts rays of every cell and bin on room
+	 * 
+	 * @param room
+	 */
+	private void fill(Room room) {
+		int index = 0;
+		for (int row = 0; row < rows; row++) {
+			double y = originY + row * cellSize;
+			for (int column = 0; column < columns; column++) {
+				double x = originX + column * cellSize;
+				for (int bin = 0; bin < bins; bin++) {
+					double distance = room.castRay(x, y, bin / binsPerRadian, range);
+					table.put(index++, distance > range ? MISS : (char) Math.round(distance / scale));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Fingerprint of room and table parameters, used for detecting stale
+	 * cache files
+	 */
+	private static int checksum(Room room, double cellSize, int bins, double range) {
+		int result = bins;
+		result = 31 * result + Double.valueOf(cellSize).hashCode();
+		result = 31 * result + Double.valueOf(range).hashCode();
+		result = 31 * result + room.getChecksum();
+		return result;
+	}
+
+	private static int readChecksum(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				return 0;
+			}
+			return in.readInt();
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * Finds distance to nearest wall along a ray. Used by sensor model of
+ * {@link ParticleFilter}
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public interface RayCaster {
+
+	/**
+	 * Casts a ray
+	 * 
+	 * @param x
+	 *            start of ray
+	 * @param y
+	 *            start of ray
+	 * @param angle
+	 *            direction of ray in radians
+	 * @param maxRange
+	 *            length of ray
+	 * @return distance to nearest wall, {@link Double#POSITIVE_INFINITY} if
+	 *         there is no wall within maxRange
+	 */
+	double castRay(double x, double y, double angle, double maxRange);
+
+	/**
+	 * Casts rays of beams of a {@link BeamSet} from one point. Directions of
+	 * rays are beams rotated by heading, so trigonometry of heading is
+	 * computed once per batch
+	 * 
+	 * @param x
+	 *            start of rays
+	 * @param y
+	 *            start of rays
+	 * @param heading
+	 *            direction beams are relative to in radians
+	 * @param beams
+	 *            directions of rays relative to heading
+	 * @param maxRanges
+	 *            length of ray of every beam
+	 * @param stride
+	 *            every stride'th beam starting with first one is cast
+	 * @param ranges
+	 *            distances to nearest walls are written into, one per cast
+	 *            beam, {@link Double#POSITIVE_INFINITY} if there is no wall
+	 *            within length of ray
+	 * @param offset
+	 *            index of first distance in ranges
+	 */
+	void castRays(double x, double y, double heading, BeamSet beams, double[] maxRanges, int stride, double[] ranges, int offset);
+
+	/**
+	 * @return length of longest ray which is cast exactly, walls further away
+	 *         are missed. {@link Double#POSITIVE_INFINITY} if rays of any
+	 *         length are cast
+	 */
+	double getRange();
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Records a run: odometry, ground truth and sensor readings of every step
+ * into a {@link SensorLog}, and optionally particles after every step into a
+ * {@link ParticleLog} named &lt;log&gt;.particles. Both are buffered, so
+ * recording a step costs about as much as copying its data.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class Recorder implements Closeable {
+
+	private final SensorLogWriter sensors;
+	private final ParticleLogWriter particles;
+	private final BeamSet beams;
+	private final double sensorRange;
+	private long step;
+
+	/**
+	 * @param file
+	 *            sensor log to create
+	 * @param room
+	 *            map of run
+	 * @param beams
+	 *            beams of sensor
+	 * @param sensorRange
+	 * @param recordParticles
+	 *            true for recording particles too
+	 * @param quantized
+	 *            true for storing readings and particles as 16 bit fixed
+	 *            point numbers
+	 * @throws IOException
+	 */
+	public Recorder(File file, Room room, BeamSet beams, double sensorRange, boolean recordParticles, boolean quantized) throws IOException {
+		this.beams = beams;
+		this.sensorRange = sensorRange;
+		sensors = new SensorLogWriter(file, beams.getAngles(), sensorRange, quantized ? SensorLog.QUANTIZED : 0);
+		if (recordParticles) {
+			try {
+				particles = new ParticleLogWriter(new File(file.getPath() + ".particles"), room, quantized ? ParticleLog.QUANTIZED : 0);
+			} catch (IOException e) {
+				sensors.close();
+				throw e;
+			}
+		} else {
+			particles = null;
+		}
+	}
+
+	/**
+	 * Records a step
+	 * 
+	 * @param odometry
+	 *            motion filter was stepped with
+	 * @param truth
+	 *            real pose of robot
+	 * @param readings
+	 *            readings filter was stepped with
+	 * @param filter
+	 *            filter after step
+	 * @throws IOException
+	 */
+	public void record(Odometry odometry, RMotion truth, double[] readings, ParticleFilter filter) throws IOException {
+		sensors.write(odometry, truth.getX(), truth.getY(), truth.getAngle(), readings);
+		if (particles != null) {
+			particles.write(step, filter.getParticles());
+		}
+		step++;
+	}
+
+	/**
+	 * Checks a configuration can be recorded into this log. Beams and sensor
+	 * range are in header of log, so they can not change while recording
+	 * 
+	 * @param config
+	 * @return true if beams and sensor range of config are those of log
+	 */
+	public boolean matches(FilterConfig config) {
+		return beams.equals(config.getBeams()) && sensorRange == config.getSensorRange();
+	}
+
+	/**
+	 * @return number of recorded steps
+	 */
+	public long getSteps() {
+		return step;
+	}
+
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			sensors.close();
+		} finally {
+			if (particles != null) {
+				particles.close();
+			}
+		}
+	}
+}
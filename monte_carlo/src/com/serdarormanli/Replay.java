@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Command line runner feeding a {@link SensorLog} through a
+ * {@link ParticleFilter} as fast as possible. Map, number of particles,
+ * noise and seed come from settings.xml like in viewer, beams and sensor
+ * range of settings.xml must match those log was recorded with.
+ * <p>
+ * Estimated pose of every step is written to output as a line of step, x,
+ * y, weight of heaviest particle and its distance to ground truth, followed
+ * by weighted mean x, y and number of modes of {@link PoseEstimate}. Throughput is
+ * reported when log is finished, with latencies of phases if metrics is
+ * enabled in settings.xml.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class Replay {
+
+	private static final long PROGRESS_INTERVAL = 10000000000L;
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: Replay <sensor log> <pose output> [threads]");
+			System.exit(1);
+		}
+
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		SensorLogReader log = new SensorLogReader(new File(args[0]));
+		try {
+			if (!new BeamSet(log.getBeamAngles()).equals(Util.getConfig().getBeams())) {
+				System.err.println("Beams of log do not match beams of filter.");
+				System.exit(1);
+			}
+			if (log.getSensorRange() != Util.getConfig().getSensorRange()) {
+				System.err.println("Sensor range of log " + log.getSensorRange() + " does not match sensor range of filter " + Util.getConfig().getSensorRange() + ".");
+				System.exit(1);
+			}
+
+			Room room = Util.getRoom();
+			ParticleFilter filter = new ParticleFilter(room, Util.getRayCaster(room), Util.getConfig(), threads, Util.getSeed());
+			filter.setKldSampler(Util.getKldSampler(room));
+			filter.setLikelihoodField(Util.getLikelihoodField(room));
+			filter.setMetrics(Util.getMetrics("replay"));
+
+			Writer out = new BufferedWriter(new FileWriter(args[1]));
+			try {
+				replay(log, filter, out);
+			} finally {
+				out.close();
+				filter.shutdown();
+			}
+		} finally {
+			log.close();
+		}
+	}
+
+	/**
+	 * Steps filter with every step of log
+	 * 
+	 * @param log
+	 * @param filter
+	 * @param out
+	 *            estimated poses are written into
+	 * @throws IOException
+	 */
+	public static void replay(SensorLogReader log, ParticleFilter filter, Writer out) throws IOException {
+		double[] readings = new double[log.getBeams()];
+		double error = 0;
+		long start = System.nanoTime();
+		long progress = start;
+
+		while (log.next()) {
+			filter.step(new Odometry(log.getRotation(), log.getDistance()), log.getReadings(readings));
+
+			double distance = Math.hypot(filter.getBestX() - log.getX(), filter.getBestY() - log.getY());
+			error += distance;
+			StringBuilder line = new StringBuilder().append(log.getStep()).append(',').append(filter.getBestX()).append(',').append(filter.getBestY()).append(',').append(filter.getBestWeight()).append(',').append(distance);
+			PoseEstimate estimate = filter.getEstimate();
+			if (estimate != null) {
+				line.append(',').append(estimate.getX()).append(',').append(estimate.getY()).append(',').append(estimate.getModes());
+			}
+			out.write(line.append('\n').toString());
+
+			long now = System.nanoTime();
+			if (now - progress > PROGRESS_INTERVAL) {
+				progress = now;
+				System.err.println((log.getStep() + 1) + "/" + log.getSteps() + " steps");
+			}
+		}
+
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long steps = log.getSteps();
+		if (filter.getMetrics() != null) {
+			filter.getMetrics().dump(System.out);
+		}
+		System.out.println(new StringBuilder().append(steps).append(" steps in ").append(Util.df.format(seconds)).append(" s, ").append(Util.df.format(steps / seconds)).append(" steps/s, mean error ").append(Util.df.format(steps == 0 ? 0 : error / steps)).toString());
+	}
+}
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Picks particles of next generation by their weights. Implementations write
+ * indices of picked particles into a given array and do not allocate per
+ * call.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public interface Resampler {
+
+	/**
+	 * Resamples
+	 * 
+	 * @param weights
+	 *            weights of particles, need not to be normalized
+	 * @param size
+	 *            number of particles in weights
+	 * @param indices
+	 *            array indices of picked particles are written into
+	 * @param count
+	 *            number of particles to pick
+	 * @param random
+	 *            generator to draw from
+	 */
+	void resample(double[] weights, int size, int[] indices, int count, Random random);
+}
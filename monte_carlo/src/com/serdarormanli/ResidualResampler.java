@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Residual resampling. Every particle is first copied as many times as
+ * integer part of its expected number of copies, remaining particles are
+ * picked by {@link MultinomialResampler} from fractional parts. Instances
+ * keep scratch arrays and should not be shared between threads.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ResidualResampler implements Resampler {
+
+	private final MultinomialResampler multinomial = new MultinomialResampler();
+	private double[] residuals = new double[0];
+
+	/**
+	 * @see com.serdarormanli.Resampler#resample(double[], int, int[], int,
+	 *      java.util.Random)
+	 */
+	@Override
+	public void resample(double[] weights, int size, int[] indices, int count, Random random) {
+		if (residuals.length < size) {
+			residuals = new double[size];
+		}
+
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += weights[i];
+		}
+
+		int k = 0;
+		double residualTotal = 0;
+		for (int j = 0; j < size; j++) {
+			double expected = count * weights[j] / total;
+			int copies = Math.min((int) expected, count - k);
+			for (int c = 0; c < copies; c++) {
+				indices[k++] = j;
+			}
+			residuals[j] = expected - copies;
+			residualTotal += residuals[j];
+		}
+
+		multinomial.pick(residuals, size, residualTotal, indices, k, count - k, random);
+	}
+}
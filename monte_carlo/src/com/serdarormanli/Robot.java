@@ -10,8 +10,8 @@
  ******************************************************************************/
 package com.serdarormanli;
 
-import math.geom2d.Point2D;
-import math.geom2d.line.Line2D;
+import java.util.Random;
+
 import processing.core.PApplet;
 
 /**
@@ -25,9 +25,10 @@ public class Robot {
 	RMotion m;
 	private double[] pdist;
 	private Room room;
+	private Random random;
+	private FilterConfig config;
 
-	private double distance = Util.getSensorRange() + 5.5;
-	private double[] reading = new double[Util.sensorRadians.length];
+	private double[] reading;
 
 	/**
 	 * Constructor
@@ -40,10 +41,16 @@ public class Robot {
 	 *            starting coordinate of robot
 	 * @param room
 	 *            {@link Room} for robot to traverse
+	 * @param random
+	 *            generator of sensor noise
+	 * @param config
+	 *            sensor range and noise of robot
 	 */
-	Robot(PApplet parent, float X, float Y, Room room) {
+	Robot(PApplet parent, float X, float Y, Room room, Random random, FilterConfig config) {
 		this.parent = parent;
 		this.room = room;
+		this.random = random;
+		this.config = config;
 		m = new RMotion(X, Y);
 	}
 
@@ -53,11 +60,17 @@ public class Robot {
 	 * @return sensor measurements
 	 */
 	public double[] measure() {
+		double distance = config.getSensorRange() + 5.5;
+		BeamSet beams = config.getBeams();
+		if (reading == null || reading.length != beams.size()) {
+			reading = new double[beams.size()];
+		}
+
 		for (int i = 0; i < reading.length; i++) {
 			double sensor = 0;
 
-			double sensorx = distance * Math.cos(Util.radianAdd(m.getAngle(), Util.sensorRadians[i]));
-			double sensory = distance * Math.sin(Util.radianAdd(m.getAngle(), Util.sensorRadians[i]));
+			double sensorx = distance * Math.cos(Util.radianAdd(m.getAngle(), beams.getAngle(i)));
+			double sensory = distance * Math.sin(Util.radianAdd(m.getAngle(), beams.getAngle(i)));
 
 			double konumx = m.getX() + sensorx;
 			double konumy = m.getY() + sensory;
@@ -65,20 +78,21 @@ public class Robot {
 			double CX = m.getX() + 5.5 * Math.cos(m.getAngle());
 			double CY = m.getY() + 5.5 * Math.sin(m.getAngle());
 
-			Point2D value = room.isIntersects(new Line2D(CX, CY, konumx, konumy));
-			if (value != null) {
-				double EX = value.x();
-				double EY = value.y();
+			double value = room.isIntersects(CX, CY, konumx, konumy);
+			if (value != Double.POSITIVE_INFINITY) {
+				double length = Math.sqrt((konumx - CX) * (konumx - CX) + (konumy - CY) * (konumy - CY));
+				double EX = CX + (konumx - CX) * value / length;
+				double EY = CY + (konumy - CY) * value / length;
 
-				sensor = parent.dist((float) CX, (float) CY, (float) EX, (float) EY);
+				sensor = value;
 				parent.stroke(204, 102, 0);
 				parent.fill(204, 102, 0);
 				parent.line((float) CX, (float) CY, (float) EX, (float) EY);
 
-				sensor = sensor + Util.getNoise(Util.getSensorNoise());
+				sensor = sensor + Util.getNoise(random, config.getSensorNoise());
 
 			} else {
-				sensor = Util.getSensorRange() + Util.getNoise(Util.getSensorNoise());
+				sensor = config.getSensorRange() + Util.getNoise(random, config.getSensorNoise());
 
 			}
 			reading[i] = sensor;
@@ -96,7 +110,7 @@ public class Robot {
 		double CX = m.getX() + 5.5 * Math.cos(m.getAngle());
 		double CY = m.getY() + 5.5 * Math.sin(m.getAngle());
 
-		boolean stat = room.isIntersects(new Line2D(CX, CY, parent.mouseX, parent.mouseY)) != null || (room.isPointIn(m.getX(), m.getY() - 5.5) && room.isPointIn(m.getX(), m.getY() + 5.5) && room.isPointIn(m.getX() - 5.5, m.getY()) && room.isPointIn(m.getX() + 5.5, m.getY()));
+		boolean stat = room.isIntersects(CX, CY, parent.mouseX, parent.mouseY) != Double.POSITIVE_INFINITY || (room.isPointIn(m.getX(), m.getY() - 5.5) && room.isPointIn(m.getX(), m.getY() + 5.5) && room.isPointIn(m.getX() - 5.5, m.getY()) && room.isPointIn(m.getX() + 5.5, m.getY()));
 
 		if (stat) {
 			m.move();
@@ -144,6 +158,21 @@ public class Robot {
 		return m;
 	}
 
+	/**
+	 * Changes sensor range, beams and noise of robot. Readings are taken
+	 * again if beams or sensor range change, since robot may not move before
+	 * filter is stepped with them
+	 * 
+	 * @param config
+	 */
+	public void setConfig(FilterConfig config) {
+		FilterConfig old = this.config;
+		this.config = config;
+		if (pdist != null && (!old.getBeams().equals(config.getBeams()) || old.getSensorRange() != config.getSensorRange())) {
+			pdist = measure();
+		}
+	}
+
 	/**
 	 * @return sensor measurements
 	 */
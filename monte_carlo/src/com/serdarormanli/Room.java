@@ -10,58 +10,460 @@
  ******************************************************************************/
 package com.serdarormanli;
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import math.geom2d.Point2D;
-import math.geom2d.line.Line2D;
-import math.geom2d.polygon.SimplePolygon2D;
-import processing.core.PApplet;
-import processing.core.PVector;
 
 /**
+ * Room is built from its corners or from an {@link OccupancyGrid}. Besides
+ * corners of its outer wall a room can have further polygons, like pillars
+ * and holes inside of it or other rooms next to it. A point is in room if it
+ * is inside of odd number of polygons, so a polygon inside of a hole is an
+ * island of free space again.
+ * <p>
+ * Building from corners rasterizes an occupancy bitmap which takes most of
+ * startup time, so a room can be loaded from a cache file holding the
+ * bitmap, see {@link #load(File, List, List, double)}. Walls of a grid are
+ * edges between its occupied and other cells, merged along rows and columns.
+ * <p>
+ * Walls are kept in a {@link SegmentGrid}, so cost of casting a ray grows
+ * with cells ray passes, not with number of walls of map.
+ * 
  * @author Serdar Ormanlı
  * 
  */
-public class Room {
+public class Room implements RayCaster {
+
+	private static final int MAX_BITMAP_CELLS = 1 << 22;
+
+	private static final int MAGIC = 0x4D434D50;
+	private static final int VERSION = 1;
+
+	private List<Point2D> corners;
+	private List<List<Point2D>> polygons;
+	private SegmentGrid walls;
+	private OccupancyBitmap freeSpace;
+
+	private double[] cornerX, cornerY;
+	private double[] wallX1, wallY1, wallX2, wallY2;
+	private double minX, minY, maxX, maxY;
+	private int checksum;
+
+	/**
+	 * Creates room with occupancy bitmap of one unit cells, coarser for big
+	 * rooms
+	 * 
+	 * @param corners
+	 */
+	public Room(List<Point2D> corners) {
+		this(corners, 0);
+	}
 
-	PApplet parent;
-	private ArrayList<PVector> corners;
-	private SimplePolygon2D walls;
+	/**
+	 * @param corners
+	 * @param occupancyCellSize
+	 *            cell size of occupancy bitmap used by
+	 *            {@link #isPointIn(double, double)}, 0 for default
+	 */
+	public Room(List<Point2D> corners, double occupancyCellSize) {
+		this(corners, new ArrayList<List<Point2D>>(), occupancyCellSize);
+	}
+
+	/**
+	 * @param corners
+	 *            corners of outer wall, may be empty if polygons give all
+	 *            walls
+	 * @param polygons
+	 *            corners of further polygons, pillars and holes inside of
+	 *            outer wall or other rooms
+	 * @param occupancyCellSize
+	 *            cell size of occupancy bitmap used by
+	 *            {@link #isPointIn(double, double)}, 0 for default
+	 */
+	public Room(List<Point2D> corners, List<List<Point2D>> polygons, double occupancyCellSize) {
+		setPolygons(corners, polygons);
+
+		if (occupancyCellSize <= 0) {
+			occupancyCellSize = Math.max(1, Math.sqrt((maxX - minX) * (maxY - minY) / MAX_BITMAP_CELLS));
+		}
+		this.freeSpace = new OccupancyBitmap(walls, minX, minY, maxX, maxY, occupancyCellSize);
+	}
 
 	/**
-	 * @param parent
+	 * Creates room with occupancy bitmap read from cache
+	 * 
 	 * @param corners
+	 * @param polygons
+	 * @param cache
+	 *            buffer positioned at occupancy bitmap
+	 * @throws IOException
 	 */
-	public Room(PApplet parent, ArrayList<PVector> corners) {
-		this.corners = corners;
-		this.walls = cornersToPolygon(corners);
-		this.parent = parent;
+	private Room(List<Point2D> corners, List<List<Point2D>> polygons, ByteBuffer cache) throws IOException {
+		setPolygons(corners, polygons);
+		this.freeSpace = OccupancyBitmap.read(cache, walls);
 	}
 
 	/**
-	 * Converts corner list to polygon
+	 * Creates room of free cells of an occupancy grid
 	 * 
-	 * @param list
-	 *            of corners
-	 * @return Rooms polygon constructed using corners
+	 * @param grid
+	 *            {@link OccupancyGrid}
 	 */
-	private SimplePolygon2D cornersToPolygon(ArrayList<PVector> list) {
-		SimplePolygon2D result = new SimplePolygon2D();
-		for (int i = 0; i < list.size(); i++) {
-			result.addVertex(new Point2D(list.get(i).x, list.get(i).y));
+	public Room(OccupancyGrid grid) {
+		this.corners = new ArrayList<Point2D>();
+		this.polygons = new ArrayList<List<Point2D>>();
+		this.cornerX = new double[0];
+		this.cornerY = new double[0];
+		this.minX = grid.getOriginX();
+		this.minY = grid.getOriginY();
+		this.maxX = minX + grid.getColumns() * grid.getResolution();
+		this.maxY = minY + grid.getRows() * grid.getResolution();
+
+		gridToWalls(grid);
+		this.freeSpace = OccupancyBitmap.fromGrid(walls, grid);
+	}
+
+	/**
+	 * Loads room from cache file. If file does not exist or it was built for
+	 * other corners or cell size, room is built and saved to file first
+	 * 
+	 * @param file
+	 *            cache file of room
+	 * @param corners
+	 *            corners of outer wall
+	 * @param polygons
+	 *            corners of further polygons
+	 * @param occupancyCellSize
+	 *            cell size of occupancy bitmap, 0 for default
+	 * @return room
+	 * @throws IOException
+	 */
+	public static Room load(File file, List<Point2D> corners, List<List<Point2D>> polygons, double occupancyCellSize) throws IOException {
+		int checksum = checksum(corners, polygons, occupancyCellSize);
+
+		if (file.exists()) {
+			ByteBuffer cache = read(file);
+			if (cache.remaining() >= 12 && cache.getInt() == MAGIC && cache.getInt() == VERSION && cache.getInt() == checksum) {
+				try {
+					return new Room(corners, polygons, cache);
+				} catch (IOException e) {
+					// broken cache is built again
+				}
+			}
+		}
+
+		Room room = new Room(corners, polygons, occupancyCellSize);
+		room.save(file, checksum);
+		return room;
+	}
+
+	private static ByteBuffer read(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			byte[] bytes = new byte[(int) Math.min(raf.length(), Integer.MAX_VALUE)];
+			raf.readFully(bytes);
+			return ByteBuffer.wrap(bytes);
+		} finally {
+			raf.close();
+		}
+	}
+
+	private void save(File file, int checksum) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(checksum);
+			freeSpace.write(out);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Fingerprint of corners, polygons and cell size, used for detecting
+	 * stale cache files
+	 */
+	private static int checksum(List<Point2D> corners, List<List<Point2D>> polygons, double occupancyCellSize) {
+		int result = Double.valueOf(occupancyCellSize).hashCode();
+		result = 31 * result + Arrays.hashCode(coordinates(corners));
+		for (List<Point2D> polygon : polygons) {
+			result = 31 * result + Arrays.hashCode(coordinates(polygon));
 		}
 		return result;
 	}
 
+	private static double[] coordinates(List<Point2D> corners) {
+		double[] coordinates = new double[2 * corners.size()];
+		for (int i = 0; i < corners.size(); i++) {
+			coordinates[2 * i] = corners.get(i).x();
+			coordinates[2 * i + 1] = corners.get(i).y();
+		}
+		return coordinates;
+	}
+
 	/**
-	 * Draws room
+	 * Sets corners, polygons, bounds and walls of room
+	 * 
+	 * @param corners
+	 * @param polygons
 	 */
-	public void display() {
+	private void setPolygons(List<Point2D> corners, List<List<Point2D>> polygons) {
+		this.corners = new ArrayList<Point2D>(corners);
+		this.polygons = new ArrayList<List<Point2D>>();
+
+		cornerX = new double[corners.size()];
+		cornerY = new double[corners.size()];
 		for (int i = 0; i < corners.size(); i++) {
-			parent.stroke(0);
-			parent.line(corners.get(i).x, corners.get(i).y, corners.get((i + 1) % corners.size()).x, corners.get((i + 1) % corners.size()).y);
+			cornerX[i] = corners.get(i).x();
+			cornerY[i] = corners.get(i).y();
+		}
+
+		List<List<Point2D>> rings = new ArrayList<List<Point2D>>();
+		if (!corners.isEmpty()) {
+			rings.add(this.corners);
+		}
+		for (List<Point2D> polygon : polygons) {
+			this.polygons.add(new ArrayList<Point2D>(polygon));
+			rings.add(polygon);
 		}
 
+		SegmentList segments = new SegmentList();
+		minX = minY = Double.POSITIVE_INFINITY;
+		maxX = maxY = Double.NEGATIVE_INFINITY;
+		for (List<Point2D> ring : rings) {
+			if (ring.size() < 3) {
+				throw new IllegalArgumentException("A polygon of room has less than 3 corners.");
+			}
+			for (int i = 0; i < ring.size(); i++) {
+				Point2D from = ring.get(i);
+				Point2D to = ring.get((i + 1) % ring.size());
+				segments.add(from.x(), from.y(), to.x(), to.y());
+				minX = Math.min(minX, from.x());
+				minY = Math.min(minY, from.y());
+				maxX = Math.max(maxX, from.x());
+				maxY = Math.max(maxY, from.y());
+			}
+		}
+
+		setWalls(segments.x1(), segments.y1(), segments.x2(), segments.y2());
+	}
+
+	/**
+	 * Converts edges between occupied and other cells of grid to wall
+	 * segments. Neighbouring edges on same grid line are merged into one
+	 * segment
+	 * 
+	 * @param grid
+	 */
+	private void gridToWalls(OccupancyGrid grid) {
+		int columns = grid.getColumns();
+		int rows = grid.getRows();
+		double resolution = grid.getResolution();
+		SegmentList segments = new SegmentList();
+
+		for (int r = 0; r <= rows; r++) {
+			int start = -1;
+			for (int c = 0; c <= columns; c++) {
+				boolean edge = c < columns && isOccupied(grid, c, r - 1) != isOccupied(grid, c, r);
+				if (edge && start < 0) {
+					start = c;
+				} else if (!edge && start >= 0) {
+					double y = minY + r * resolution;
+					segments.add(minX + start * resolution, y, minX + c * resolution, y);
+					start = -1;
+				}
+			}
+		}
+
+		for (int c = 0; c <= columns; c++) {
+			int start = -1;
+			for (int r = 0; r <= rows; r++) {
+				boolean edge = r < rows && isOccupied(grid, c - 1, r) != isOccupied(grid, c, r);
+				if (edge && start < 0) {
+					start = r;
+				} else if (!edge && start >= 0) {
+					double x = minX + c * resolution;
+					segments.add(x, minY + start * resolution, x, minY + r * resolution);
+					start = -1;
+				}
+			}
+		}
+
+		setWalls(segments.x1(), segments.y1(), segments.x2(), segments.y2());
+	}
+
+	private static boolean isOccupied(OccupancyGrid grid, int column, int row) {
+		return column >= 0 && row >= 0 && column < grid.getColumns() && row < grid.getRows() && grid.get(column, row) == OccupancyGrid.OCCUPIED;
+	}
+
+	/**
+	 * Growable arrays of segment coordinates
+	 */
+	private static class SegmentList {
+		private double[] x1 = new double[16], y1 = new double[16], x2 = new double[16], y2 = new double[16];
+		private int size;
+
+		void add(double ax, double ay, double bx, double by) {
+			if (size == x1.length) {
+				x1 = Arrays.copyOf(x1, 2 * size);
+				y1 = Arrays.copyOf(y1, 2 * size);
+				x2 = Arrays.copyOf(x2, 2 * size);
+				y2 = Arrays.copyOf(y2, 2 * size);
+			}
+			x1[size] = ax;
+			y1[size] = ay;
+			x2[size] = bx;
+			y2[size] = by;
+			size++;
+		}
+
+		double[] x1() {
+			return Arrays.copyOf(x1, size);
+		}
+
+		double[] y1() {
+			return Arrays.copyOf(y1, size);
+		}
+
+		double[] x2() {
+			return Arrays.copyOf(x2, size);
+		}
+
+		double[] y2() {
+			return Arrays.copyOf(y2, size);
+		}
+	}
+
+	/**
+	 * Sets wall segments and their checksum
+	 */
+	private void setWalls(double[] x1, double[] y1, double[] x2, double[] y2) {
+		if (x1.length == 0) {
+			throw new IllegalArgumentException("Room has no walls.");
+		}
+
+		this.wallX1 = x1;
+		this.wallY1 = y1;
+		this.wallX2 = x2;
+		this.wallY2 = y2;
+		this.walls = new SegmentGrid(x1, y1, x2, y2);
+
+		int result = Arrays.hashCode(x1);
+		result = 31 * result + Arrays.hashCode(y1);
+		result = 31 * result + Arrays.hashCode(x2);
+		result = 31 * result + Arrays.hashCode(y2);
+		this.checksum = result;
+	}
+
+	/**
+	 * @return corners of outer wall in drawing order, empty for a room of an
+	 *         occupancy grid
+	 */
+	public List<Point2D> getCorners() {
+		return corners;
+	}
+
+	/**
+	 * @return corners of further polygons of room
+	 */
+	public List<List<Point2D>> getPolygons() {
+		return polygons;
+	}
+
+	/**
+	 * @return x coordinates of corners
+	 */
+	public double[] getCornerX() {
+		return cornerX;
+	}
+
+	/**
+	 * @return y coordinates of corners
+	 */
+	public double[] getCornerY() {
+		return cornerY;
+	}
+
+	/**
+	 * @return number of wall segments
+	 */
+	public int getWallCount() {
+		return wallX1.length;
+	}
+
+	/**
+	 * @return start x coordinates of wall segments
+	 */
+	public double[] getWallX1() {
+		return wallX1;
+	}
+
+	/**
+	 * @return start y coordinates of wall segments
+	 */
+	public double[] getWallY1() {
+		return wallY1;
+	}
+
+	/**
+	 * @return end x coordinates of wall segments
+	 */
+	public double[] getWallX2() {
+		return wallX2;
+	}
+
+	/**
+	 * @return end y coordinates of wall segments
+	 */
+	public double[] getWallY2() {
+		return wallY2;
+	}
+
+	/**
+	 * @return fingerprint of walls, used for detecting stale cache files of
+	 *         room
+	 */
+	public int getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * @return smallest x coordinate of room
+	 */
+	public double getMinX() {
+		return minX;
+	}
+
+	/**
+	 * @return smallest y coordinate of room
+	 */
+	public double getMinY() {
+		return minY;
+	}
+
+	/**
+	 * @return biggest x coordinate of room
+	 */
+	public double getMaxX() {
+		return maxX;
+	}
+
+	/**
+	 * @return biggest y coordinate of room
+	 */
+	public double getMaxY() {
+		return maxY;
 	}
 
 	/**
@@ -72,32 +474,74 @@ public class Room {
 	 * @return true if point is in room, else false
 	 */
 	public boolean isPointIn(double x, double y) {
-		return walls.contains(x, y);
+		return freeSpace.isPointIn(x, y);
+	}
+
+	/**
+	 * Samples a uniformly distributed point in room
+	 * 
+	 * @param random
+	 *            generator to draw from
+	 * @param xs
+	 *            array x coordinate is written into
+	 * @param ys
+	 *            array y coordinate is written into
+	 * @param index
+	 *            index of arrays to write
+	 */
+	public void samplePoint(Random random, float[] xs, float[] ys, int index) {
+		freeSpace.sample(random, xs, ys, index);
 	}
 
 	/**
 	 * Checks if line intersect boundries of room
 	 * 
-	 * @param line
-	 * @return nearest intersection point, if there is no intersection point
-	 *         returns null
-	 */
-	public Point2D isIntersects(Line2D line) {
-		Point2D[] intersectionPoints = walls.boundary().intersections(line).toArray(new Point2D[walls.boundary().intersections(line).size()]);
-
-		if (intersectionPoints.length > 0) {
-			double distance = Util.distance;
-			int k = 0;
-			for (int i = 0; i < intersectionPoints.length; i++) {
-				double distance2 = intersectionPoints[i].distance(line.p1);
-				if (distance2 < distance) {
-					distance = distance2;
-					k = i;
-				}
-			}
-			return intersectionPoints[k];
+	 * @param x1
+	 *            start of line
+	 * @param y1
+	 *            start of line
+	 * @param x2
+	 *            end of line
+	 * @param y2
+	 *            end of line
+	 * @return distance from start of line to nearest intersection point,
+	 *         {@link Double#POSITIVE_INFINITY} if there is no intersection
+	 *         point
+	 */
+	public double isIntersects(double x1, double y1, double x2, double y2) {
+		double dx = x2 - x1;
+		double dy = y2 - y1;
+		double length = Math.sqrt(dx * dx + dy * dy);
+		if (length == 0) {
+			return Double.POSITIVE_INFINITY;
 		}
+		return walls.cast(x1, y1, dx / length, dy / length, length);
+	}
 
-		return null;
+	/**
+	 * @see com.serdarormanli.RayCaster#castRay(double, double, double, double)
+	 */
+	@Override
+	public double castRay(double x, double y, double angle, double maxRange) {
+		return walls.castRay(x, y, angle, maxRange);
+	}
+
+	/**
+	 * @see com.serdarormanli.RayCaster#castRays(double, double, double,
+	 *      BeamSet, double[], int, double[], int)
+	 */
+	@Override
+	public void castRays(double x, double y, double heading, BeamSet beams, double[] maxRanges, int stride, double[] ranges, int offset) {
+		walls.castRays(x, y, heading, beams, maxRanges, stride, ranges, offset);
+	}
+
+	/**
+	 * Rays of any length are cast
+	 * 
+	 * @see com.serdarormanli.RayCaster#getRange()
+	 */
+	@Override
+	public double getRange() {
+		return Double.POSITIVE_INFINITY;
 	}
 }
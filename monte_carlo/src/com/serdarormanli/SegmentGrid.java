@@ -0,0 +1,422 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid of wall segments. Every cell keeps indices of segments
+ * passing through it, so ray casting only tests walls of cells ray travels
+ * (DDA traversal) and stops at first cell containing a hit. Point in room test
+ * counts crossings of a horizontal ray walking the cells of a single row.
+ * <p>
+ * Queries do not create objects and grid is immutable after construction,
+ * so it can be shared between threads.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class SegmentGrid implements RayCaster {
+
+	private static final int MAX_CELLS_PER_AXIS = 1024;
+	private static final double EPSILON = 1e-9;
+
+	private final double[] x1, y1, x2, y2;
+
+	private final double minX, minY, cellSize;
+	private final int columns, rows;
+
+	private final int[] cellStart;
+	private final int[] cellSegments;
+
+	/**
+	 * @param x1
+	 *            start x coordinates of segments
+	 * @param y1
+	 *            start y coordinates of segments
+	 * @param x2
+	 *            end x coordinates of segments
+	 * @param y2
+	 *            end y coordinates of segments
+	 */
+	public SegmentGrid(double[] x1, double[] y1, double[] x2, double[] y2) {
+		this.x1 = x1;
+		this.y1 = y1;
+		this.x2 = x2;
+		this.y2 = y2;
+
+		double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < x1.length; i++) {
+			minX = Math.min(minX, Math.min(x1[i], x2[i]));
+			minY = Math.min(minY, Math.min(y1[i], y2[i]));
+			maxX = Math.max(maxX, Math.max(x1[i], x2[i]));
+			maxY = Math.max(maxY, Math.max(y1[i], y2[i]));
+		}
+		double width = Math.max(maxX - minX, 1);
+		double height = Math.max(maxY - minY, 1);
+
+		// about one segment per cell, bounded for degenerate and huge maps
+		double cellSize = Math.sqrt(width * height / Math.max(1, x1.length));
+		cellSize = Math.max(cellSize, Math.max(width, height) / MAX_CELLS_PER_AXIS);
+
+		this.minX = minX;
+		this.minY = minY;
+		this.cellSize = cellSize;
+		this.columns = (int) (width / cellSize) + 1;
+		this.rows = (int) (height / cellSize) + 1;
+
+		int[] counts = new int[columns * rows + 1];
+		for (int i = 0; i < x1.length; i++) {
+			forEachCell(i, counts, null);
+		}
+
+		cellStart = new int[columns * rows + 1];
+		for (int c = 0; c < columns * rows; c++) {
+			cellStart[c + 1] = cellStart[c] + counts[c];
+		}
+
+		cellSegments = new int[cellStart[columns * rows]];
+		int[] fill = new int[columns * rows + 1];
+		System.arraycopy(cellStart, 0, fill, 0, fill.length);
+		for (int i = 0; i < x1.length; i++) {
+			forEachCell(i, fill, cellSegments);
+		}
+	}
+
+	/**
+	 * Visits cells segment passes through. Without target array only counts
+	 * segments per cell, with target array writes segment into cell slots
+	 */
+	private void forEachCell(int segment, int[] counters, int[] target) {
+		int fromColumn = column(Math.min(x1[segment], x2[segment]));
+		int toColumn = column(Math.max(x1[segment], x2[segment]));
+		int fromRow = row(Math.min(y1[segment], y2[segment]));
+		int toRow = row(Math.max(y1[segment], y2[segment]));
+
+		for (int r = fromRow; r <= toRow; r++) {
+			for (int c = fromColumn; c <= toColumn; c++) {
+				double cx = minX + c * cellSize;
+				double cy = minY + r * cellSize;
+				if (segmentTouchesBox(segment, cx - EPSILON, cy - EPSILON, cx + cellSize + EPSILON, cy + cellSize + EPSILON)) {
+					int cell = r * columns + c;
+					if (target == null) {
+						counters[cell]++;
+					} else {
+						target[counters[cell]++] = segment;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Liang-Barsky clipping of segment against box
+	 */
+	private boolean segmentTouchesBox(int segment, double boxMinX, double boxMinY, double boxMaxX, double boxMaxY) {
+		double dx = x2[segment] - x1[segment];
+		double dy = y2[segment] - y1[segment];
+		double enter = 0, exit = 1;
+
+		for (int side = 0; side < 4; side++) {
+			double p, q;
+			switch (side) {
+			case 0:
+				p = -dx;
+				q = x1[segment] - boxMinX;
+				break;
+			case 1:
+				p = dx;
+				q = boxMaxX - x1[segment];
+				break;
+			case 2:
+				p = -dy;
+				q = y1[segment] - boxMinY;
+				break;
+			default:
+				p = dy;
+				q = boxMaxY - y1[segment];
+				break;
+			}
+
+			if (p == 0) {
+				if (q < 0) {
+					return false;
+				}
+			} else if (p < 0) {
+				enter = Math.max(enter, q / p);
+			} else {
+				exit = Math.min(exit, q / p);
+			}
+		}
+		return enter <= exit;
+	}
+
+	/**
+	 * Checks if any segment touches a box
+	 * 
+	 * @param boxMinX
+	 * @param boxMinY
+	 * @param boxMaxX
+	 * @param boxMaxY
+	 * @return true if a segment passes through or touches box
+	 */
+	public boolean touchesBox(double boxMinX, double boxMinY, double boxMaxX, double boxMaxY) {
+		int toColumn = column(boxMaxX);
+		int toRow = row(boxMaxY);
+
+		for (int r = row(boxMinY); r <= toRow; r++) {
+			for (int c = column(boxMinX); c <= toColumn; c++) {
+				int cell = r * columns + c;
+				for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+					if (segmentTouchesBox(cellSegments[k], boxMinX, boxMinY, boxMaxX, boxMaxY)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	private int column(double x) {
+		return Math.max(0, Math.min(columns - 1, (int) ((x - minX) / cellSize)));
+	}
+
+	private int row(double y) {
+		return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellSize)));
+	}
+
+	/**
+	 * @see com.serdarormanli.RayCaster#castRay(double, double, double, double)
+	 */
+	@Override
+	public double castRay(double x, double y, double angle, double maxRange) {
+		return cast(x, y, Math.cos(angle), Math.sin(angle), maxRange);
+	}
+
+	/**
+	 * @see com.serdarormanli.RayCaster#castRays(double, double, double,
+	 *      BeamSet, double[], int, double[], int)
+	 */
+	@Override
+	public void castRays(double x, double y, double heading, BeamSet beams, double[] maxRanges, int stride, double[] ranges, int offset) {
+		double cos = Math.cos(heading);
+		double sin = Math.sin(heading);
+
+		for (int i = 0, k = offset; i < beams.size(); i += stride, k++) {
+			double dx = cos * beams.getCos(i) - sin * beams.getSin(i);
+			double dy = sin * beams.getCos(i) + cos * beams.getSin(i);
+			ranges[k] = cast(x, y, dx, dy, maxRanges[i]);
+		}
+	}
+
+	/**
+	 * Rays of any length are cast
+	 * 
+	 * @see com.serdarormanli.RayCaster#getRange()
+	 */
+	@Override
+	public double getRange() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Casts a ray with unit direction vector
+	 * 
+	 * @param x
+	 *            start of ray
+	 * @param y
+	 *            start of ray
+	 * @param dx
+	 *            x component of unit direction
+	 * @param dy
+	 *            y component of unit direction
+	 * @param maxRange
+	 *            length of ray
+	 * @return distance to nearest segment, {@link Double#POSITIVE_INFINITY} if
+	 *         there is no segment within maxRange
+	 */
+	public double cast(double x, double y, double dx, double dy, double maxRange) {
+		double maxX = minX + columns * cellSize;
+		double maxY = minY + rows * cellSize;
+
+		// clip ray to bounds of grid
+		double enter = 0, exit = maxRange;
+		if (dx == 0) {
+			if (x < minX || x > maxX) {
+				return Double.POSITIVE_INFINITY;
+			}
+		} else {
+			double t1 = (minX - x) / dx;
+			double t2 = (maxX - x) / dx;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		if (dy == 0) {
+			if (y < minY || y > maxY) {
+				return Double.POSITIVE_INFINITY;
+			}
+		} else {
+			double t1 = (minY - y) / dy;
+			double t2 = (maxY - y) / dy;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		if (enter > exit) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		int c = column(x + dx * enter);
+		int r = row(y + dy * enter);
+
+		int stepColumn = dx > 0 ? 1 : -1;
+		int stepRow = dy > 0 ? 1 : -1;
+		double deltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+		double deltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+		double nextX = dx == 0 ? Double.POSITIVE_INFINITY : (minX + (dx > 0 ? c + 1 : c) * cellSize - x) / dx;
+		double nextY = dy == 0 ? Double.POSITIVE_INFINITY : (minY + (dy > 0 ? r + 1 : r) * cellSize - y) / dy;
+
+		double nearest = Double.POSITIVE_INFINITY;
+
+		while (true) {
+			int cell = r * columns + c;
+			for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+				double t = intersect(cellSegments[k], x, y, dx, dy);
+				if (t < nearest && t <= maxRange) {
+					nearest = t;
+				}
+			}
+
+			double cellExit = Math.min(Math.min(nextX, nextY), exit);
+			if (nearest <= cellExit || cellExit >= exit) {
+				return nearest;
+			}
+
+			if (nextX < nextY) {
+				c += stepColumn;
+				nextX += deltaX;
+			} else {
+				r += stepRow;
+				nextY += deltaY;
+			}
+			if (c < 0 || r < 0 || c >= columns || r >= rows) {
+				return nearest;
+			}
+		}
+	}
+
+	/**
+	 * Intersects ray with a segment
+	 * 
+	 * @return distance along ray, {@link Double#POSITIVE_INFINITY} if they do
+	 *         not intersect
+	 */
+	private double intersect(int segment, double x, double y, double dx, double dy) {
+		double ex = x2[segment] - x1[segment];
+		double ey = y2[segment] - y1[segment];
+		double denominator = dx * ey - dy * ex;
+		if (denominator == 0) {
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double wx = x1[segment] - x;
+		double wy = y1[segment] - y;
+		double t = (wx * ey - wy * ex) / denominator;
+		double u = (wx * dy - wy * dx) / denominator;
+		if (t >= 0 && u >= 0 && u <= 1) {
+			return t;
+		}
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return number of segments
+	 */
+	public int size() {
+		return x1.length;
+	}
+
+	/**
+	 * Collects x coordinates where segments cross a horizontal line, in
+	 * increasing order. Only cells of line's row are visited. A point of line
+	 * is inside of segments if odd number of crossings are right of it, same
+	 * as {@link #isPointIn(double, double)}, so a row of points can be tested
+	 * with one pass
+	 * 
+	 * @param y
+	 * @param crossings
+	 *            array of at least {@link #size()} values crossings are
+	 *            written into
+	 * @return number of crossings
+	 */
+	public int crossings(double y, double[] crossings) {
+		if (y < minY || y > minY + rows * cellSize) {
+			return 0;
+		}
+
+		int r = row(y);
+		int n = 0;
+
+		for (int c = 0; c < columns; c++) {
+			double cellMinX = c == 0 ? Double.NEGATIVE_INFINITY : minX + c * cellSize;
+			double cellMaxX = c == columns - 1 ? Double.POSITIVE_INFINITY : minX + (c + 1) * cellSize;
+			int cell = r * columns + c;
+
+			for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+				int s = cellSegments[k];
+				if ((y1[s] > y) != (y2[s] > y)) {
+					double crossing = x1[s] + (y - y1[s]) * (x2[s] - x1[s]) / (y2[s] - y1[s]);
+					if (crossing >= cellMinX && crossing < cellMaxX) {
+						crossings[n++] = crossing;
+					}
+				}
+			}
+		}
+
+		Arrays.sort(crossings, 0, n);
+		return n;
+	}
+
+	/**
+	 * Checks a point is inside of segments by counting crossings of a ray
+	 * going to +x. Only cells of point's row are visited
+	 * 
+	 * @param x
+	 * @param y
+	 * @return true if ray crosses segments odd times
+	 */
+	public boolean isPointIn(double x, double y) {
+		if (x < minX || y < minY || x > minX + columns * cellSize || y > minY + rows * cellSize) {
+			return false;
+		}
+
+		int r = row(y);
+		boolean inside = false;
+
+		for (int c = column(x); c < columns; c++) {
+			double cellMinX = minX + c * cellSize;
+			double cellMaxX = c == columns - 1 ? Double.POSITIVE_INFINITY : cellMinX + cellSize;
+			int cell = r * columns + c;
+
+			for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+				int s = cellSegments[k];
+				if ((y1[s] > y) != (y2[s] > y)) {
+					double crossing = x1[s] + (y - y1[s]) * (x2[s] - x1[s]) / (y2[s] - y1[s]);
+					// a segment spanning several cells is counted only in cell of crossing
+					if (crossing > x && crossing >= cellMinX && crossing < cellMaxX) {
+						inside = !inside;
+					}
+				}
+			}
+		}
+		return inside;
+	}
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+/**
+ * Binary log of robot runs, read by {@link SensorLogReader} and written by
+ * {@link SensorLogWriter}. All numbers are little endian.
+ * <p>
+ * Header: magic, version, flags, number of beams (ints), sensor range
+ * (double), angle of every beam relative to robot (doubles).
+ * <p>
+ * Records of fixed width follow header, one per step: rotation and distance
+ * of odometry, x, y and orientation of ground truth as floats and a reading
+ * per beam. Readings are floats, or with {@link #QUANTIZED} flag 16 bit
+ * fixed point numbers between -range and 2 * range, which is precise to
+ * range / 20000. Number of steps is derived from file length, so a log can
+ * be read while it is written. {@link SensorLogWriter} buffers steps and
+ * writes them when 64 KiB are collected, on {@link SensorLogWriter#flush()}
+ * and on close, a reader sees them from then on.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public final class SensorLog {
+
+	static final int MAGIC = 0x4C4C434D;
+	static final int VERSION = 2;
+
+	/** readings are stored as 16 bit fixed point numbers */
+	public static final int QUANTIZED = 1;
+
+	/** ints and sensor range before beam angles */
+	static final int FIXED_HEADER_SIZE = 4 * 4 + 8;
+
+	/** floats before readings in a record */
+	static final int RECORD_FIELDS = 5;
+
+	private SensorLog() {
+	}
+
+	/**
+	 * @param beams
+	 * @return size of header in bytes
+	 */
+	static int headerSize(int beams) {
+		return FIXED_HEADER_SIZE + 8 * beams;
+	}
+
+	/**
+	 * @param beams
+	 * @param flags
+	 * @return size of a record in bytes
+	 */
+	static int recordSize(int beams, int flags) {
+		return 4 * RECORD_FIELDS + ((flags & QUANTIZED) != 0 ? 2 : 4) * beams;
+	}
+
+	/**
+	 * @param reading
+	 * @param sensorRange
+	 * @return reading as 16 bit fixed point number
+	 */
+	static char quantize(double reading, double sensorRange) {
+		double value = Math.round((reading + sensorRange) / (3 * sensorRange) * Character.MAX_VALUE);
+		return (char) Math.max(0, Math.min(Character.MAX_VALUE, value));
+	}
+
+	/**
+	 * @param value
+	 *            16 bit fixed point number
+	 * @param sensorRange
+	 * @return reading
+	 */
+	static double dequantize(char value, double sensorRange) {
+		return value * (3 * sensorRange) / Character.MAX_VALUE - sensorRange;
+	}
+}
@@ -0,0 +1,267 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a {@link SensorLog} through memory mapped windows of file, so logs
+ * bigger than memory are streamed by operating system without copying.
+ * Values of current step are read directly from mapped memory. Steps
+ * appended to file after it was opened are read too.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class SensorLogReader implements Closeable {
+
+	private static final long WINDOW_SIZE = 1L << 30;
+
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+
+	private final int flags;
+	private final int beams;
+	private final double sensorRange;
+	private final double[] beamAngles;
+	private final int headerSize;
+	private final int recordSize;
+	private final long windowSteps;
+
+	private long steps;
+	private MappedByteBuffer window;
+	private long windowStart;
+	private long windowEnd;
+	private long step = -1;
+	private int position;
+
+	/**
+	 * Opens a log
+	 * 
+	 * @param file
+	 * @throws IOException
+	 *             if file is not a sensor log or its header is corrupt
+	 */
+	public SensorLogReader(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+
+		boolean opened = false;
+		try {
+			ByteBuffer header = ByteBuffer.allocate(SensorLog.FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(header, 0);
+			if (header.getInt() != SensorLog.MAGIC) {
+				throw new IOException("Not a sensor log: " + file);
+			}
+			if (header.getInt() != SensorLog.VERSION) {
+				throw new IOException("Unsupported version of sensor log: " + file);
+			}
+			flags = header.getInt();
+			beams = header.getInt();
+			sensorRange = header.getDouble();
+
+			// beam angles must fit into file, which also bounds size of header
+			if ((flags & ~SensorLog.QUANTIZED) != 0 || beams < 1 || beams > (channel.size() - SensorLog.FIXED_HEADER_SIZE) / 8 || !(sensorRange > 0) || Double.isInfinite(sensorRange)) {
+				throw new IOException("Header of sensor log is corrupt: " + file);
+			}
+
+			ByteBuffer angles = ByteBuffer.allocate(8 * beams).order(ByteOrder.LITTLE_ENDIAN);
+			readFully(angles, SensorLog.FIXED_HEADER_SIZE);
+			beamAngles = new double[beams];
+			for (int i = 0; i < beams; i++) {
+				beamAngles[i] = angles.getDouble();
+			}
+
+			headerSize = SensorLog.headerSize(beams);
+			recordSize = SensorLog.recordSize(beams, flags);
+			steps = countSteps();
+			windowSteps = WINDOW_SIZE / recordSize;
+			opened = true;
+		} finally {
+			if (!opened) {
+				this.file.close();
+			}
+		}
+	}
+
+	private void readFully(ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				throw new IOException("Sensor log is truncated");
+			}
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * @return number of complete records in file
+	 * @throws IOException
+	 */
+	private long countSteps() throws IOException {
+		return Math.max(0, channel.size() - headerSize) / recordSize;
+	}
+
+	/**
+	 * Moves to next step. When last known step is passed, file is checked for
+	 * steps appended since, a partially written step is read once it is
+	 * complete
+	 * 
+	 * @return false if there are no more steps
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException {
+		if (step + 1 >= steps) {
+			steps = countSteps();
+			if (step + 1 >= steps) {
+				return false;
+			}
+		}
+		step++;
+
+		if (window == null || step >= windowEnd) {
+			windowStart = step;
+			windowEnd = step + Math.min(windowSteps, steps - step);
+			window = channel.map(FileChannel.MapMode.READ_ONLY, headerSize + step * recordSize, (windowEnd - step) * recordSize);
+			window.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		position = (int) (step - windowStart) * recordSize;
+		return true;
+	}
+
+	/**
+	 * Moves before a step, so next call of {@link #next()} reads it
+	 * 
+	 * @param step
+	 *            index of step
+	 */
+	public void seek(long step) {
+		if (step < 0 || step > steps) {
+			throw new IllegalArgumentException("Step must be between 0 and number of steps.");
+		}
+		this.step = step - 1;
+		window = null;
+	}
+
+	/**
+	 * @return rotation of odometry of current step
+	 */
+	public double getRotation() {
+		return window.getFloat(position);
+	}
+
+	/**
+	 * @return distance of odometry of current step
+	 */
+	public double getDistance() {
+		return window.getFloat(position + 4);
+	}
+
+	/**
+	 * @return ground truth x of current step
+	 */
+	public double getX() {
+		return window.getFloat(position + 8);
+	}
+
+	/**
+	 * @return ground truth y of current step
+	 */
+	public double getY() {
+		return window.getFloat(position + 12);
+	}
+
+	/**
+	 * @return ground truth orientation of current step
+	 */
+	public double getOrientation() {
+		return window.getFloat(position + 16);
+	}
+
+	/**
+	 * Copies sensor readings of current step
+	 * 
+	 * @param readings
+	 *            array of at least {@link #getBeams()} readings
+	 * @return readings
+	 */
+	public double[] getReadings(double[] readings) {
+		int offset = position + 4 * SensorLog.RECORD_FIELDS;
+		if (isQuantized()) {
+			for (int i = 0; i < beams; i++) {
+				readings[i] = SensorLog.dequantize(window.getChar(offset + 2 * i), sensorRange);
+			}
+		} else {
+			for (int i = 0; i < beams; i++) {
+				readings[i] = window.getFloat(offset + 4 * i);
+			}
+		}
+		return readings;
+	}
+
+	/**
+	 * @return index of current step
+	 */
+	public long getStep() {
+		return step;
+	}
+
+	/**
+	 * @return number of steps in log, as of opening or last call of
+	 *         {@link #next()} which reached end of log
+	 */
+	public long getSteps() {
+		return steps;
+	}
+
+	/**
+	 * @return true if readings are stored as 16 bit fixed point numbers
+	 */
+	public boolean isQuantized() {
+		return (flags & SensorLog.QUANTIZED) != 0;
+	}
+
+	/**
+	 * @return number of beams of a reading
+	 */
+	public int getBeams() {
+		return beams;
+	}
+
+	/**
+	 * @return sensor range of robot
+	 */
+	public double getSensorRange() {
+		return sensorRange;
+	}
+
+	/**
+	 * @return angle of every beam relative to robot
+	 */
+	public double[] getBeamAngles() {
+		return beamAngles.clone();
+	}
+
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		window = null;
+		file.close();
+	}
+}
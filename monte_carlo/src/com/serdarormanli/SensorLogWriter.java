@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends steps to a {@link SensorLog}. Records are collected in a direct
+ * buffer and written to channel when it is full, so writing a step is a few
+ * puts into memory.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class SensorLogWriter implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final int beams;
+	private final int flags;
+	private final int recordSize;
+	private final double sensorRange;
+
+	/**
+	 * Creates a new log with float readings, overwriting file
+	 * 
+	 * @param file
+	 * @param beamAngles
+	 *            angle of every beam relative to robot
+	 * @param sensorRange
+	 * @throws IOException
+	 */
+	public SensorLogWriter(File file, double[] beamAngles, double sensorRange) throws IOException {
+		this(file, beamAngles, sensorRange, 0);
+	}
+
+	/**
+	 * Creates a new log, overwriting file
+	 * 
+	 * @param file
+	 * @param beamAngles
+	 *            angle of every beam relative to robot
+	 * @param sensorRange
+	 * @param flags
+	 *            {@link SensorLog#QUANTIZED} or 0
+	 * @throws IOException
+	 */
+	public SensorLogWriter(File file, double[] beamAngles, double sensorRange, int flags) throws IOException {
+		this.beams = beamAngles.length;
+		this.flags = flags;
+		this.recordSize = SensorLog.recordSize(beams, flags);
+		this.sensorRange = sensorRange;
+		this.channel = new FileOutputStream(file).getChannel();
+		this.buffer = ByteBuffer.allocateDirect(Math.max(BUFFER_SIZE, SensorLog.headerSize(beams) + recordSize)).order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(SensorLog.MAGIC);
+		buffer.putInt(SensorLog.VERSION);
+		buffer.putInt(flags);
+		buffer.putInt(beams);
+		buffer.putDouble(sensorRange);
+		for (double angle : beamAngles) {
+			buffer.putDouble(angle);
+		}
+	}
+
+	/**
+	 * Appends a step
+	 * 
+	 * @param odometry
+	 *            motion of robot since last step
+	 * @param x
+	 *            ground truth of robot
+	 * @param y
+	 *            ground truth of robot
+	 * @param orientation
+	 *            ground truth of robot
+	 * @param readings
+	 *            sensor readings, one per beam
+	 * @throws IOException
+	 * @throws IllegalArgumentException
+	 *             if number of readings is not number of beams of log
+	 */
+	public void write(Odometry odometry, double x, double y, double orientation, double[] readings) throws IOException {
+		if (readings.length != beams) {
+			throw new IllegalArgumentException("Number of readings does not match number of beams of log.");
+		}
+		if (buffer.remaining() < recordSize) {
+			flush();
+		}
+
+		buffer.putFloat((float) odometry.getRotation());
+		buffer.putFloat((float) odometry.getDistance());
+		buffer.putFloat((float) x);
+		buffer.putFloat((float) y);
+		buffer.putFloat((float) orientation);
+		if ((flags & SensorLog.QUANTIZED) != 0) {
+			for (int i = 0; i < beams; i++) {
+				buffer.putChar(SensorLog.quantize(readings[i], sensorRange));
+			}
+		} else {
+			for (int i = 0; i < beams; i++) {
+				buffer.putFloat((float) readings[i]);
+			}
+		}
+	}
+
+	/**
+	 * Writes buffered steps to file
+	 * 
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * @see java.io.Closeable#close()
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+}
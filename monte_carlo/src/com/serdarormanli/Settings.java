@@ -8,27 +8,16 @@
  * Contributors:
  *     Serdar Ormanlı - initial API and implementation
  ******************************************************************************/
-//
-// This file was generated by the JavaTM Architecture for XML Binding(JAXB) Reference Implementation, v2.2.4-2 
-// See <a href="http://java.sun.com/xml/jaxb">http://java.sun.com/xml/jaxb</a> 
-// Any modifications to this file will be lost upon recompilation of the source schema. 
-// Generated on: 2013.12.28 at 09:21:59 PM EET 
-//
-
-
 package com.serdarormanli;
 
 import java.util.ArrayList;
 import java.util.List;
-import javax.xml.bind.annotation.XmlAccessType;
-import javax.xml.bind.annotation.XmlAccessorType;
-import javax.xml.bind.annotation.XmlElement;
-import javax.xml.bind.annotation.XmlRootElement;
-import javax.xml.bind.annotation.XmlType;
 
 
 /**
- * <p>Java class for anonymous complex type.
+ * <p>Settings of settings.xml, read by {@link SettingsReader}. Class was
+ * generated by JAXB once, it is a plain bean now so reading settings does
+ * not start JAXB.
  * 
  * <p>The following schema fragment specifies the expected content contained within this class.
  * 
@@ -44,7 +33,11 @@ import javax.xml.bind.annotation.XmlType;
  *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
  *                 &lt;sequence>
  *                   &lt;element name="name" type="{http://www.w3.org/2001/XMLSchema}string"/>
- *                   &lt;element name="corner" maxOccurs="unbounded" minOccurs="3">
+ *                   &lt;element name="image" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+ *                   &lt;element name="resolution" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *                   &lt;element name="originx" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *                   &lt;element name="originy" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *                   &lt;element name="corner" maxOccurs="unbounded" minOccurs="0">
  *                     &lt;complexType>
  *                       &lt;complexContent>
  *                         &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
@@ -56,16 +49,48 @@ import javax.xml.bind.annotation.XmlType;
  *                       &lt;/complexContent>
  *                     &lt;/complexType>
  *                   &lt;/element>
+ *                   &lt;element name="polygon" maxOccurs="unbounded" minOccurs="0">
+ *                     &lt;complexType>
+ *                       &lt;complexContent>
+ *                         &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+ *                           &lt;sequence>
+ *                             &lt;element name="corner" maxOccurs="unbounded" minOccurs="3"/>
+ *                           &lt;/sequence>
+ *                         &lt;/restriction>
+ *                       &lt;/complexContent>
+ *                     &lt;/complexType>
+ *                   &lt;/element>
  *                 &lt;/sequence>
  *               &lt;/restriction>
  *             &lt;/complexContent>
  *           &lt;/complexType>
  *         &lt;/element>
  *         &lt;element name="sensorrange" type="{http://www.w3.org/2001/XMLSchema}double"/>
- *         &lt;element name="numofparticles" type="{http://www.w3.org/2001/XMLSchema}short"/>
+ *         &lt;element name="numofparticles" type="{http://www.w3.org/2001/XMLSchema}int"/>
  *         &lt;element name="orientationnoise" type="{http://www.w3.org/2001/XMLSchema}double"/>
  *         &lt;element name="movenoise" type="{http://www.w3.org/2001/XMLSchema}double"/>
  *         &lt;element name="sensornoise" type="{http://www.w3.org/2001/XMLSchema}double"/>
+ *         &lt;element name="beams" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="fieldofview" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *         &lt;element name="weightbeams" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="raycastcellsize" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *         &lt;element name="raycastbins" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="occupancycellsize" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *         &lt;element name="likelihoodcellsize" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *         &lt;element name="minparticles" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="maxparticles" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="kldepsilon" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *         &lt;element name="resamplethreshold" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+ *         &lt;element name="seed" type="{http://www.w3.org/2001/XMLSchema}long" minOccurs="0"/>
+ *         &lt;element name="recordfile" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+ *         &lt;element name="recordparticles" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="recordquantized" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="metrics" type="{http://www.w3.org/2001/XMLSchema}boolean" minOccurs="0"/>
+ *         &lt;element name="metricsinterval" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="rendermode" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+ *         &lt;element name="renderpoints" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="viewerwidth" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
+ *         &lt;element name="viewerheight" type="{http://www.w3.org/2001/XMLSchema}int" minOccurs="0"/>
  *       &lt;/sequence>
  *     &lt;/restriction>
  *   &lt;/complexContent>
@@ -74,28 +99,36 @@ import javax.xml.bind.annotation.XmlType;
  * 
  * 
  */
-@XmlAccessorType(XmlAccessType.FIELD)
-@XmlType(name = "", propOrder = {
-    "defaultmap",
-    "map",
-    "sensorrange",
-    "numofparticles",
-    "orientationnoise",
-    "movenoise",
-    "sensornoise"
-})
-@XmlRootElement(name = "settings")
 public class Settings {
 
-    @XmlElement(required = true)
     protected String defaultmap;
-    @XmlElement(required = true)
     protected List<Settings.Map> map;
     protected double sensorrange;
-    protected short numofparticles;
+    protected int numofparticles;
     protected double orientationnoise;
     protected double movenoise;
     protected double sensornoise;
+    protected Integer beams;
+    protected Double fieldofview;
+    protected Integer weightbeams;
+    protected Double raycastcellsize;
+    protected Integer raycastbins;
+    protected Double occupancycellsize;
+    protected Double likelihoodcellsize;
+    protected Integer minparticles;
+    protected Integer maxparticles;
+    protected Double kldepsilon;
+    protected Double resamplethreshold;
+    protected Long seed;
+    protected String recordfile;
+    protected Boolean recordparticles;
+    protected Boolean recordquantized;
+    protected Boolean metrics;
+    protected Integer metricsinterval;
+    protected String rendermode;
+    protected Integer renderpoints;
+    protected Integer viewerwidth;
+    protected Integer viewerheight;
 
     /**
      * Gets the value of the defaultmap property.
@@ -127,7 +160,7 @@ public class Settings {
      * <p>
      * This accessor method returns a reference to the live list,
      * not a snapshot. Therefore any modification you make to the
-     * returned list will be present inside the JAXB object.
+     * returned list will be present inside the settings object.
      * This is why there is not a <CODE>set</CODE> method for the map property.
      * 
      * <p>
@@ -170,7 +203,7 @@ public class Settings {
      * Gets the value of the numofparticles property.
      * 
      */
-    public short getNumofparticles() {
+    public int getNumofparticles() {
         return numofparticles;
     }
 
@@ -178,7 +211,7 @@ public class Settings {
      * Sets the value of the numofparticles property.
      * 
      */
-    public void setNumofparticles(short value) {
+    public void setNumofparticles(int value) {
         this.numofparticles = value;
     }
 
@@ -230,6 +263,510 @@ public class Settings {
         this.sensornoise = value;
     }
 
+    /**
+     * Gets the value of the beams property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getBeams() {
+        return beams;
+    }
+
+    /**
+     * Sets the value of the beams property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setBeams(Integer value) {
+        this.beams = value;
+    }
+
+    /**
+     * Gets the value of the fieldofview property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Double }
+     *     
+     */
+    public Double getFieldofview() {
+        return fieldofview;
+    }
+
+    /**
+     * Sets the value of the fieldofview property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Double }
+     *     
+     */
+    public void setFieldofview(Double value) {
+        this.fieldofview = value;
+    }
+
+    /**
+     * Gets the value of the weightbeams property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getWeightbeams() {
+        return weightbeams;
+    }
+
+    /**
+     * Sets the value of the weightbeams property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setWeightbeams(Integer value) {
+        this.weightbeams = value;
+    }
+
+    /**
+     * Gets the value of the raycastcellsize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Double }
+     *     
+     */
+    public Double getRaycastcellsize() {
+        return raycastcellsize;
+    }
+
+    /**
+     * Sets the value of the raycastcellsize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Double }
+     *     
+     */
+    public void setRaycastcellsize(Double value) {
+        this.raycastcellsize = value;
+    }
+
+    /**
+     * Gets the value of the raycastbins property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getRaycastbins() {
+        return raycastbins;
+    }
+
+    /**
+     * Sets the value of the raycastbins property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setRaycastbins(Integer value) {
+        this.raycastbins = value;
+    }
+
+    /**
+     * Gets the value of the occupancycellsize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Double }
+     *     
+     */
+    public Double getOccupancycellsize() {
+        return occupancycellsize;
+    }
+
+    /**
+     * Sets the value of the occupancycellsize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Double }
+     *     
+     */
+    public void setOccupancycellsize(Double value) {
+        this.occupancycellsize = value;
+    }
+
+    /**
+     * Gets the value of the likelihoodcellsize property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Double }
+     *     
+     */
+    public Double getLikelihoodcellsize() {
+        return likelihoodcellsize;
+    }
+
+    /**
+     * Sets the value of the likelihoodcellsize property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Double }
+     *     
+     */
+    public void setLikelihoodcellsize(Double value) {
+        this.likelihoodcellsize = value;
+    }
+
+    /**
+     * Gets the value of the minparticles property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getMinparticles() {
+        return minparticles;
+    }
+
+    /**
+     * Sets the value of the minparticles property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setMinparticles(Integer value) {
+        this.minparticles = value;
+    }
+
+    /**
+     * Gets the value of the maxparticles property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getMaxparticles() {
+        return maxparticles;
+    }
+
+    /**
+     * Sets the value of the maxparticles property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setMaxparticles(Integer value) {
+        this.maxparticles = value;
+    }
+
+    /**
+     * Gets the value of the kldepsilon property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Double }
+     *     
+     */
+    public Double getKldepsilon() {
+        return kldepsilon;
+    }
+
+    /**
+     * Sets the value of the kldepsilon property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Double }
+     *     
+     */
+    public void setKldepsilon(Double value) {
+        this.kldepsilon = value;
+    }
+
+    /**
+     * Gets the value of the resamplethreshold property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Double }
+     *     
+     */
+    public Double getResamplethreshold() {
+        return resamplethreshold;
+    }
+
+    /**
+     * Sets the value of the resamplethreshold property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Double }
+     *     
+     */
+    public void setResamplethreshold(Double value) {
+        this.resamplethreshold = value;
+    }
+
+    /**
+     * Gets the value of the seed property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Long }
+     *     
+     */
+    public Long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets the value of the seed property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Long }
+     *     
+     */
+    public void setSeed(Long value) {
+        this.seed = value;
+    }
+
+    /**
+     * Gets the value of the recordfile property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getRecordfile() {
+        return recordfile;
+    }
+
+    /**
+     * Sets the value of the recordfile property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setRecordfile(String value) {
+        this.recordfile = value;
+    }
+
+    /**
+     * Gets the value of the recordparticles property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean getRecordparticles() {
+        return recordparticles;
+    }
+
+    /**
+     * Sets the value of the recordparticles property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setRecordparticles(Boolean value) {
+        this.recordparticles = value;
+    }
+
+    /**
+     * Gets the value of the recordquantized property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean getRecordquantized() {
+        return recordquantized;
+    }
+
+    /**
+     * Sets the value of the recordquantized property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setRecordquantized(Boolean value) {
+        this.recordquantized = value;
+    }
+
+    /**
+     * Gets the value of the metrics property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Boolean }
+     *     
+     */
+    public Boolean getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the value of the metrics property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Boolean }
+     *     
+     */
+    public void setMetrics(Boolean value) {
+        this.metrics = value;
+    }
+
+    /**
+     * Gets the value of the metricsinterval property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getMetricsinterval() {
+        return metricsinterval;
+    }
+
+    /**
+     * Sets the value of the metricsinterval property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setMetricsinterval(Integer value) {
+        this.metricsinterval = value;
+    }
+
+    /**
+     * Gets the value of the rendermode property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link String }
+     *     
+     */
+    public String getRendermode() {
+        return rendermode;
+    }
+
+    /**
+     * Sets the value of the rendermode property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link String }
+     *     
+     */
+    public void setRendermode(String value) {
+        this.rendermode = value;
+    }
+
+    /**
+     * Gets the value of the renderpoints property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getRenderpoints() {
+        return renderpoints;
+    }
+
+    /**
+     * Sets the value of the renderpoints property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setRenderpoints(Integer value) {
+        this.renderpoints = value;
+    }
+
+    /**
+     * Gets the value of the viewerwidth property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getViewerwidth() {
+        return viewerwidth;
+    }
+
+    /**
+     * Sets the value of the viewerwidth property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setViewerwidth(Integer value) {
+        this.viewerwidth = value;
+    }
+
+    /**
+     * Gets the value of the viewerheight property.
+     * 
+     * @return
+     *     possible object is
+     *     {@link Integer }
+     *     
+     */
+    public Integer getViewerheight() {
+        return viewerheight;
+    }
+
+    /**
+     * Sets the value of the viewerheight property.
+     * 
+     * @param value
+     *     allowed object is
+     *     {@link Integer }
+     *     
+     */
+    public void setViewerheight(Integer value) {
+        this.viewerheight = value;
+    }
+
 
     /**
      * <p>Java class for anonymous complex type.
@@ -242,7 +779,11 @@ public class Settings {
      *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
      *       &lt;sequence>
      *         &lt;element name="name" type="{http://www.w3.org/2001/XMLSchema}string"/>
-     *         &lt;element name="corner" maxOccurs="unbounded" minOccurs="3">
+     *         &lt;element name="image" type="{http://www.w3.org/2001/XMLSchema}string" minOccurs="0"/>
+     *         &lt;element name="resolution" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+     *         &lt;element name="originx" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+     *         &lt;element name="originy" type="{http://www.w3.org/2001/XMLSchema}double" minOccurs="0"/>
+     *         &lt;element name="corner" maxOccurs="unbounded" minOccurs="0">
      *           &lt;complexType>
      *             &lt;complexContent>
      *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
@@ -254,6 +795,17 @@ public class Settings {
      *             &lt;/complexContent>
      *           &lt;/complexType>
      *         &lt;/element>
+     *         &lt;element name="polygon" maxOccurs="unbounded" minOccurs="0">
+     *           &lt;complexType>
+     *             &lt;complexContent>
+     *               &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+     *                 &lt;sequence>
+     *                   &lt;element name="corner" maxOccurs="unbounded" minOccurs="3"/>
+     *                 &lt;/sequence>
+     *               &lt;/restriction>
+     *             &lt;/complexContent>
+     *           &lt;/complexType>
+     *         &lt;/element>
      *       &lt;/sequence>
      *     &lt;/restriction>
      *   &lt;/complexContent>
@@ -262,17 +814,15 @@ public class Settings {
      * 
      * 
      */
-    @XmlAccessorType(XmlAccessType.FIELD)
-    @XmlType(name = "", propOrder = {
-        "name",
-        "corner"
-    })
     public static class Map {
 
-        @XmlElement(required = true)
         protected String name;
-        @XmlElement(required = true)
+        protected String image;
+        protected Double resolution;
+        protected Double originx;
+        protected Double originy;
         protected List<Settings.Map.Corner> corner;
+        protected List<Settings.Map.Polygon> polygon;
 
         /**
          * Gets the value of the name property.
@@ -298,13 +848,109 @@ public class Settings {
             this.name = value;
         }
 
+        /**
+         * Gets the value of the image property.
+         * 
+         * @return
+         *     possible object is
+         *     {@link String }
+         *     
+         */
+        public String getImage() {
+            return image;
+        }
+
+        /**
+         * Sets the value of the image property.
+         * 
+         * @param value
+         *     allowed object is
+         *     {@link String }
+         *     
+         */
+        public void setImage(String value) {
+            this.image = value;
+        }
+
+        /**
+         * Gets the value of the resolution property.
+         * 
+         * @return
+         *     possible object is
+         *     {@link Double }
+         *     
+         */
+        public Double getResolution() {
+            return resolution;
+        }
+
+        /**
+         * Sets the value of the resolution property.
+         * 
+         * @param value
+         *     allowed object is
+         *     {@link Double }
+         *     
+         */
+        public void setResolution(Double value) {
+            this.resolution = value;
+        }
+
+        /**
+         * Gets the value of the originx property.
+         * 
+         * @return
+         *     possible object is
+         *     {@link Double }
+         *     
+         */
+        public Double getOriginx() {
+            return originx;
+        }
+
+        /**
+         * Sets the value of the originx property.
+         * 
+         * @param value
+         *     allowed object is
+         *     {@link Double }
+         *     
+         */
+        public void setOriginx(Double value) {
+            this.originx = value;
+        }
+
+        /**
+         * Gets the value of the originy property.
+         * 
+         * @return
+         *     possible object is
+         *     {@link Double }
+         *     
+         */
+        public Double getOriginy() {
+            return originy;
+        }
+
+        /**
+         * Sets the value of the originy property.
+         * 
+         * @param value
+         *     allowed object is
+         *     {@link Double }
+         *     
+         */
+        public void setOriginy(Double value) {
+            this.originy = value;
+        }
+
         /**
          * Gets the value of the corner property.
          * 
          * <p>
          * This accessor method returns a reference to the live list,
          * not a snapshot. Therefore any modification you make to the
-         * returned list will be present inside the JAXB object.
+         * returned list will be present inside the settings object.
          * This is why there is not a <CODE>set</CODE> method for the corner property.
          * 
          * <p>
@@ -327,6 +973,28 @@ public class Settings {
             return this.corner;
         }
 
+        /**
+         * Gets the value of the polygon property.
+         * 
+         * <p>
+         * This accessor method returns a reference to the live list,
+         * not a snapshot. Therefore any modification you make to the
+         * returned list will be present inside the settings object.
+         * This is why there is not a <CODE>set</CODE> method for the polygon property.
+         * 
+         * <p>
+         * Objects of the following type(s) are allowed in the list
+         * {@link Settings.Map.Polygon }
+         * 
+         * 
+         */
+        public List<Settings.Map.Polygon> getPolygon() {
+            if (polygon == null) {
+                polygon = new ArrayList<Settings.Map.Polygon>();
+            }
+            return this.polygon;
+        }
+
 
         /**
          * <p>Java class for anonymous complex type.
@@ -348,11 +1016,6 @@ public class Settings {
          * 
          * 
          */
-        @XmlAccessorType(XmlAccessType.FIELD)
-        @XmlType(name = "", propOrder = {
-            "x",
-            "y"
-        })
         public static class Corner {
 
             protected short x;
@@ -392,6 +1055,52 @@ public class Settings {
 
         }
 
+
+        /**
+         * <p>Java class for anonymous complex type.
+         * 
+         * <p>The following schema fragment specifies the expected content contained within this class.
+         * 
+         * <pre>
+         * &lt;complexType>
+         *   &lt;complexContent>
+         *     &lt;restriction base="{http://www.w3.org/2001/XMLSchema}anyType">
+         *       &lt;sequence>
+         *         &lt;element name="corner" maxOccurs="unbounded" minOccurs="3"/>
+         *       &lt;/sequence>
+         *     &lt;/restriction>
+         *   &lt;/complexContent>
+         * &lt;/complexType>
+         * </pre>
+         * 
+         * 
+         */
+        public static class Polygon {
+
+            protected List<Settings.Map.Corner> corner;
+
+            /**
+             * Gets the value of the corner property.
+             * 
+             * <p>
+             * This accessor method returns a reference to the live list,
+             * not a snapshot.
+             * 
+             * <p>
+             * Objects of the following type(s) are allowed in the list
+             * {@link Settings.Map.Corner }
+             * 
+             * 
+             */
+            public List<Settings.Map.Corner> getCorner() {
+                if (corner == null) {
+                    corner = new ArrayList<Settings.Map.Corner>();
+                }
+                return this.corner;
+            }
+
+        }
+
     }
 
 }
@@ -0,0 +1,328 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.serdarormanli.Settings.Map;
+import com.serdarormanli.Settings.Map.Corner;
+import com.serdarormanli.Settings.Map.Polygon;
+
+/**
+ * Reads settings.xml into {@link Settings} with a streaming StAX parser.
+ * Unlike JAXB no binding context is built from reflection, so settings are
+ * read in a few milliseconds. Layout of file is given by settings.xsd,
+ * unknown elements are skipped like JAXB does.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public final class SettingsReader {
+
+	private static final XMLInputFactory FACTORY = createFactory();
+
+	private SettingsReader() {
+	}
+
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return factory;
+	}
+
+	/**
+	 * Reads settings file
+	 * 
+	 * @param file
+	 *            settings.xml
+	 * @return settings
+	 * @throws IOException
+	 *             if file can't be read or is not valid
+	 */
+	public static Settings read(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			return read(in);
+		} catch (IOException e) {
+			throw new IOException("Can't read settings from " + file + ": " + e.getMessage(), e);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads settings from a stream, stream is not closed
+	 * 
+	 * @param in
+	 * @return settings
+	 * @throws IOException
+	 *             if stream can't be read or is not valid
+	 */
+	public static Settings read(InputStream in) throws IOException {
+		try {
+			XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+			try {
+				reader.nextTag();
+				reader.require(XMLStreamConstants.START_ELEMENT, null, "settings");
+				return readSettings(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (XMLStreamException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+	}
+
+	private static Settings readSettings(XMLStreamReader reader) throws XMLStreamException, IOException {
+		Settings settings = new Settings();
+
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String name = reader.getLocalName();
+			switch (name) {
+			case "defaultmap":
+				settings.setDefaultmap(text(reader));
+				break;
+			case "map":
+				settings.getMap().add(readMap(reader));
+				break;
+			case "sensorrange":
+				settings.setSensorrange(parseDouble(reader));
+				break;
+			case "numofparticles":
+				settings.setNumofparticles(parseInt(reader));
+				break;
+			case "orientationnoise":
+				settings.setOrientationnoise(parseDouble(reader));
+				break;
+			case "movenoise":
+				settings.setMovenoise(parseDouble(reader));
+				break;
+			case "sensornoise":
+				settings.setSensornoise(parseDouble(reader));
+				break;
+			case "beams":
+				settings.setBeams(parseInt(reader));
+				break;
+			case "fieldofview":
+				settings.setFieldofview(parseDouble(reader));
+				break;
+			case "weightbeams":
+				settings.setWeightbeams(parseInt(reader));
+				break;
+			case "raycastcellsize":
+				settings.setRaycastcellsize(parseDouble(reader));
+				break;
+			case "raycastbins":
+				settings.setRaycastbins(parseInt(reader));
+				break;
+			case "occupancycellsize":
+				settings.setOccupancycellsize(parseDouble(reader));
+				break;
+			case "likelihoodcellsize":
+				settings.setLikelihoodcellsize(parseDouble(reader));
+				break;
+			case "minparticles":
+				settings.setMinparticles(parseInt(reader));
+				break;
+			case "maxparticles":
+				settings.setMaxparticles(parseInt(reader));
+				break;
+			case "kldepsilon":
+				settings.setKldepsilon(parseDouble(reader));
+				break;
+			case "resamplethreshold":
+				settings.setResamplethreshold(parseDouble(reader));
+				break;
+			case "seed":
+				settings.setSeed(parseLong(reader));
+				break;
+			case "recordfile":
+				settings.setRecordfile(text(reader));
+				break;
+			case "recordparticles":
+				settings.setRecordparticles(parseBoolean(reader));
+				break;
+			case "recordquantized":
+				settings.setRecordquantized(parseBoolean(reader));
+				break;
+			case "metrics":
+				settings.setMetrics(parseBoolean(reader));
+				break;
+			case "metricsinterval":
+				settings.setMetricsinterval(parseInt(reader));
+				break;
+			case "rendermode":
+				settings.setRendermode(text(reader));
+				break;
+			case "renderpoints":
+				settings.setRenderpoints(parseInt(reader));
+				break;
+			case "viewerwidth":
+				settings.setViewerwidth(parseInt(reader));
+				break;
+			case "viewerheight":
+				settings.setViewerheight(parseInt(reader));
+				break;
+			default:
+				skip(reader);
+			}
+		}
+
+		if (settings.getDefaultmap() == null) {
+			throw new IOException("defaultmap is missing.");
+		}
+		return settings;
+	}
+
+	private static Map readMap(XMLStreamReader reader) throws XMLStreamException, IOException {
+		Map map = new Map();
+
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String name = reader.getLocalName();
+			if (name.equals("name")) {
+				map.setName(text(reader));
+			} else if (name.equals("image")) {
+				map.setImage(text(reader));
+			} else if (name.equals("resolution")) {
+				map.setResolution(parseDouble(reader));
+			} else if (name.equals("originx")) {
+				map.setOriginx(parseDouble(reader));
+			} else if (name.equals("originy")) {
+				map.setOriginy(parseDouble(reader));
+			} else if (name.equals("corner")) {
+				map.getCorner().add(readCorner(reader));
+			} else if (name.equals("polygon")) {
+				map.getPolygon().add(readPolygon(reader));
+			} else {
+				skip(reader);
+			}
+		}
+
+		if (map.getName() == null) {
+			throw new IOException("Name of map is missing.");
+		}
+		return map;
+	}
+
+	private static Polygon readPolygon(XMLStreamReader reader) throws XMLStreamException, IOException {
+		Polygon polygon = new Polygon();
+
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			if (reader.getLocalName().equals("corner")) {
+				polygon.getCorner().add(readCorner(reader));
+			} else {
+				skip(reader);
+			}
+		}
+
+		if (polygon.getCorner().size() < 3) {
+			throw new IOException("Polygon of map has less than 3 corners.");
+		}
+		return polygon;
+	}
+
+	private static Corner readCorner(XMLStreamReader reader) throws XMLStreamException, IOException {
+		Corner corner = new Corner();
+
+		while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+			String name = reader.getLocalName();
+			if (name.equals("x")) {
+				corner.setX(parseShort(reader));
+			} else if (name.equals("y")) {
+				corner.setY(parseShort(reader));
+			} else {
+				skip(reader);
+			}
+		}
+
+		return corner;
+	}
+
+	/**
+	 * Skips current element with its children
+	 */
+	private static void skip(XMLStreamReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0) {
+			int event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				depth++;
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				depth--;
+			}
+		}
+	}
+
+	private static String text(XMLStreamReader reader) throws XMLStreamException {
+		return reader.getElementText().trim();
+	}
+
+	private static double parseDouble(XMLStreamReader reader) throws XMLStreamException, IOException {
+		String name = reader.getLocalName();
+		String value = text(reader);
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			throw new IOException(name + " is not a number: " + value);
+		}
+	}
+
+	private static int parseInt(XMLStreamReader reader) throws XMLStreamException, IOException {
+		String name = reader.getLocalName();
+		String value = text(reader);
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new IOException(name + " is not an int: " + value);
+		}
+	}
+
+	private static long parseLong(XMLStreamReader reader) throws XMLStreamException, IOException {
+		String name = reader.getLocalName();
+		String value = text(reader);
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			throw new IOException(name + " is not a long: " + value);
+		}
+	}
+
+	private static short parseShort(XMLStreamReader reader) throws XMLStreamException, IOException {
+		String name = reader.getLocalName();
+		String value = text(reader);
+		try {
+			return Short.parseShort(value);
+		} catch (NumberFormatException e) {
+			throw new IOException(name + " is not a short: " + value);
+		}
+	}
+
+	private static boolean parseBoolean(XMLStreamReader reader) throws XMLStreamException, IOException {
+		String name = reader.getLocalName();
+		String value = text(reader);
+		if (value.equals("true") || value.equals("1")) {
+			return true;
+		} else if (value.equals("false") || value.equals("0")) {
+			return false;
+		}
+		throw new IOException(name + " is not a boolean: " + value);
+	}
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * SplitMix64 generator. Unlike {@link Random} its state is a plain long
+ * updated without atomic operations, so a generator owned by a single
+ * thread or block costs a few arithmetic instructions per draw. It is not
+ * thread safe, every thread or block needs its own generator, which
+ * {@link #split()} creates.
+ * <p>
+ * Gaussians come from {@link ZigguratGaussianSampler}.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class SplitMixRandom extends Random {
+	private static final long serialVersionUID = 6157251823403432950L;
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	// not initialized here, since super constructor sets it through setSeed
+	private long state;
+
+	/**
+	 * Creates generator with random seed
+	 */
+	public SplitMixRandom() {
+		this(System.nanoTime() ^ new Random().nextLong());
+	}
+
+	/**
+	 * @param seed
+	 */
+	public SplitMixRandom(long seed) {
+		super(seed);
+	}
+
+	/**
+	 * Restarts generator
+	 * 
+	 * @see java.util.Random#setSeed(long)
+	 */
+	@Override
+	public void setSeed(long seed) {
+		state = seed;
+	}
+
+	/**
+	 * Creates a generator with independent stream, advances this generator
+	 * 
+	 * @return new generator
+	 */
+	public SplitMixRandom split() {
+		return new SplitMixRandom(nextLong());
+	}
+
+	/**
+	 * @see java.util.Random#nextLong()
+	 */
+	@Override
+	public long nextLong() {
+		long z = state += GOLDEN_GAMMA;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * @see java.util.Random#next(int)
+	 */
+	@Override
+	protected int next(int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	/**
+	 * @see java.util.Random#nextDouble()
+	 */
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * @see java.util.Random#nextGaussian()
+	 */
+	@Override
+	public double nextGaussian() {
+		return ZigguratGaussianSampler.gaussian(this);
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Stratified resampling. Cumulative weight is divided into equal strata and
+ * a particle is picked at a random point of every stratum.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class StratifiedResampler implements Resampler {
+
+	/**
+	 * @see com.serdarormanli.Resampler#resample(double[], int, int[], int,
+	 *      java.util.Random)
+	 */
+	@Override
+	public void resample(double[] weights, int size, int[] indices, int count, Random random) {
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += weights[i];
+		}
+
+		double step = total / count;
+		double cumulative = weights[0];
+		int j = 0;
+
+		for (int i = 0; i < count; i++) {
+			double u = (i + random.nextDouble()) * step;
+			while (u > cumulative && j < size - 1) {
+				cumulative += weights[++j];
+			}
+			indices[i] = j;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Systematic resampling. A single random offset is drawn and particles are
+ * picked at equally spaced points of cumulative weight.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class SystematicResampler implements Resampler {
+
+	/**
+	 * @see com.serdarormanli.Resampler#resample(double[], int, int[], int,
+	 *      java.util.Random)
+	 */
+	@Override
+	public void resample(double[] weights, int size, int[] indices, int count, Random random) {
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += weights[i];
+		}
+
+		double step = total / count;
+		double u = random.nextDouble() * step;
+		double cumulative = weights[0];
+		int j = 0;
+
+		for (int i = 0; i < count; i++) {
+			while (u > cumulative && j < size - 1) {
+				cumulative += weights[++j];
+			}
+			indices[i] = j;
+			u += step;
+		}
+	}
+}
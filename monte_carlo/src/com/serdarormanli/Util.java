@@ -11,17 +11,20 @@
 package com.serdarormanli;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Unmarshaller;
+import javax.management.JMException;
 
-import processing.core.PVector;
+import math.geom2d.Point2D;
 
 import com.serdarormanli.Settings.Map;
 import com.serdarormanli.Settings.Map.Corner;
+import com.serdarormanli.Settings.Map.Polygon;
 
 /**
  * Utilities used by this project
@@ -31,26 +34,31 @@ import com.serdarormanli.Settings.Map.Corner;
  */
 public class Util {
 
-	public static double[] sensorRadians = { -1.57079633, 0, 1.57079633 };
-
-	public final static int height = 480;
-	public final static int width = 640;
-
-	private static Double sensorRange;
-	private static Integer particleNum;
-
 	public final static int distance = 10000;
 
 	public final static DecimalFormat df = new DecimalFormat("#.#####");
 
-	private static Settings settings;
+	private static volatile Settings settings;
+	private static volatile FilterConfig config;
 
-	private static Double orientNoise;
-	private static Double moveNoise;
-	private static Double sensorNoise;
+	private static volatile Long seed;
 
 	private static final String settingsPath = "settings.xml";
 
+	private static final int defaultRayCastBins = 360;
+
+	private static final double likelihoodMaxDistance = 10;
+
+	private static final double defaultKldEpsilon = 0.05;
+	private static final double kldZ = 2.326;
+	private static final double kldBinSize = 10;
+	private static final int kldAngleBins = 36;
+
+	private static final int defaultRenderPoints = 2000;
+
+	private static final int defaultViewerWidth = 640;
+	private static final int defaultViewerHeight = 480;
+
 	/**
 	 * Adding to radians for Motion library. Plus operator wont give true result
 	 * 
@@ -82,11 +90,29 @@ public class Util {
 	 * @return generated noise
 	 */
 	public final static double getNoise(double value) {
+		return getNoise(null, value);
+	}
+
+	/**
+	 * Box-muller noise generator drawing from given generator
+	 * 
+	 * @param random
+	 *            generator to draw from, null for generator of current
+	 *            thread, which is not shared like {@link Math#random()}
+	 * @param value
+	 *            variance of noise
+	 * @return generated noise
+	 */
+	public final static double getNoise(Random random, double value) {
+		if (random == null) {
+			random = ThreadLocalRandom.current();
+		}
+
 		double r, x, y;
 
 		do {
-			x = 2.0 * Math.random() - 1.0;
-			y = 2.0 * Math.random() - 1.0;
+			x = 2.0 * random.nextDouble() - 1.0;
+			y = 2.0 * random.nextDouble() - 1.0;
 			r = x * x + y * y;
 		} while (r > 1 || r == 0);
 
@@ -133,18 +159,102 @@ public class Util {
 	 *                if sum is zero or NaN
 	 */
 	public final static void normalize(double[] doubles, double sum) {
+		normalize(doubles, 0, doubles.length, sum);
+	}
+
+	/**
+	 * Normalizes the doubles in a range of the array by their sum.
+	 * 
+	 * @param doubles
+	 *            the array of double
+	 * @param from
+	 *            first index of range
+	 * @param to
+	 *            index after last index of range
+	 * @exception IllegalArgumentException
+	 *                if sum is NaN
+	 */
+	public final static void normalize(double[] doubles, int from, int to) {
+		double sum = 0;
+		for (int i = from; i < to; i++) {
+			sum += doubles[i];
+		}
+		normalize(doubles, from, to, sum);
+	}
+
+	/**
+	 * Normalizes the doubles in a range of the array using the given value.
+	 * 
+	 * @param doubles
+	 *            the array of double
+	 * @param from
+	 *            first index of range
+	 * @param to
+	 *            index after last index of range
+	 * @param sum
+	 *            the value by which the doubles are to be normalized
+	 * @exception IllegalArgumentException
+	 *                if sum is NaN
+	 */
+	public final static void normalize(double[] doubles, int from, int to, double sum) {
 
 		if (Double.isNaN(sum)) {
 			throw new IllegalArgumentException("Can't normalize array. Sum is NaN.");
 		}
 		if (sum != 0) {
-			for (int i = 0; i < doubles.length; i++) {
+			for (int i = from; i < to; i++) {
 				doubles[i] /= sum;
 			}
 		}
 
 	}
 
+	/**
+	 * Converts logarithms in the array to values normalized by their sum.
+	 * Largest logarithm is subtracted before exponentiation (log-sum-exp), so
+	 * at least one value stays one and sum never underflows to zero
+	 * 
+	 * @param logs
+	 *            the array of logarithms, normalized values are written back
+	 * @exception IllegalArgumentException
+	 *                if all values are zero, or a value is NaN or infinite
+	 */
+	public final static void normalizeLog(double[] logs) {
+		normalizeLog(logs, 0, logs.length);
+	}
+
+	/**
+	 * Converts logarithms in a range of the array to values normalized by
+	 * their sum
+	 * 
+	 * @param logs
+	 *            the array of logarithms
+	 * @param from
+	 *            first index of range
+	 * @param to
+	 *            index after last index of range
+	 * @exception IllegalArgumentException
+	 *                if all values are zero, or a value is NaN or infinite
+	 * @see #normalizeLog(double[])
+	 */
+	public final static void normalizeLog(double[] logs, int from, int to) {
+		double max = Double.NEGATIVE_INFINITY;
+		for (int i = from; i < to; i++) {
+			max = Math.max(max, logs[i]);
+		}
+
+		if (Double.isNaN(max) || Double.isInfinite(max)) {
+			throw new IllegalArgumentException("Can't normalize array. Maximum is " + max + ".");
+		}
+
+		double sum = 0;
+		for (int i = from; i < to; i++) {
+			logs[i] = Math.exp(logs[i] - max);
+			sum += logs[i];
+		}
+		normalize(logs, from, to, sum);
+	}
+
 	/**
 	 * Imports settings from settings.xml
 	 * 
@@ -154,11 +264,8 @@ public class Util {
 	public final static Settings importSettings(String path) {
 		if (settings == null) {
 			try {
-				File file = new File(path);
-				JAXBContext jaxbContext = JAXBContext.newInstance(Settings.class);
-				Unmarshaller jaxbUnmarshaller = jaxbContext.createUnmarshaller();
-				settings = (Settings) jaxbUnmarshaller.unmarshal(file);
-			} catch (JAXBException e) {
+				settings = SettingsReader.read(new File(path));
+			} catch (IOException e) {
 				e.printStackTrace();
 			}
 		}
@@ -171,16 +278,16 @@ public class Util {
 	 * 
 	 * @return corners
 	 */
-	public final static ArrayList<PVector> getCorners() {
+	public final static ArrayList<Point2D> getCorners() {
 		Settings settingsList = importSettings(settingsPath);
 
-		ArrayList<PVector> walls = new ArrayList<PVector>();
+		ArrayList<Point2D> walls = new ArrayList<Point2D>();
 
 		for (int i = 0; i < settingsList.getMap().size(); i++) {
 			Map map = settingsList.getMap().get(i);
 			if (settingsList.getDefaultmap().equals(map.getName())) {
 				for (int j = 0; j < map.getCorner().size(); j++) {
-					walls.add(cornerToPVector(map.getCorner().get(j)));
+					walls.add(cornerToPoint(map.getCorner().get(j)));
 				}
 			}
 		}
@@ -188,62 +295,320 @@ public class Util {
 	}
 
 	/**
-	 * Converts settings.xml's {@link Settings.Map.Corner} to {@link PVector}
+	 * Get corners of polygons of default map from settings.xml
+	 * 
+	 * @return corners of every polygon
+	 */
+	public final static List<List<Point2D>> getPolygons() {
+		Map map = getDefaultMap(importSettings(settingsPath));
+
+		List<List<Point2D>> polygons = new ArrayList<List<Point2D>>();
+		if (map != null) {
+			for (Polygon polygon : map.getPolygon()) {
+				List<Point2D> corners = new ArrayList<Point2D>();
+				for (Corner corner : polygon.getCorner()) {
+					corners.add(cornerToPoint(corner));
+				}
+				polygons.add(corners);
+			}
+		}
+		return polygons;
+	}
+
+	/**
+	 * Creates {@link Room} of default map from settings.xml. A map with an
+	 * image is read as an {@link OccupancyGrid}, otherwise room of corners and
+	 * polygons is loaded from &lt;defaultmap&gt;.map cache file, which is
+	 * built when missing or stale
+	 * 
+	 * @return room
+	 */
+	public final static Room getRoom() {
+		Settings settingsList = importSettings(settingsPath);
+		Map map = getDefaultMap(settingsList);
+		if (map != null && map.getImage() != null) {
+			try {
+				return new Room(getOccupancyGrid(map));
+			} catch (IOException e) {
+				throw new IllegalStateException("Map image " + map.getImage() + " can not be read.", e);
+			}
+		}
+
+		Double occupancyCellSize = settingsList.getOccupancycellsize();
+		double cellSize = occupancyCellSize == null ? 0 : occupancyCellSize.doubleValue();
+		try {
+			return Room.load(new File(settingsList.getDefaultmap() + ".map"), getCorners(), getPolygons(), cellSize);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return new Room(getCorners(), getPolygons(), cellSize);
+		}
+	}
+
+	/**
+	 * @param settingsList
+	 * @return default map of settings, null if it is missing
+	 */
+	private static Map getDefaultMap(Settings settingsList) {
+		for (Map map : settingsList.getMap()) {
+			if (settingsList.getDefaultmap().equals(map.getName())) {
+				return map;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads occupancy grid of a map with an image. Resolution defaults to one
+	 * pixel per unit and origin to zero
+	 * 
+	 * @param map
+	 * @return grid
+	 * @throws IOException
+	 */
+	private static OccupancyGrid getOccupancyGrid(Map map) throws IOException {
+		double resolution = map.getResolution() == null ? 1 : map.getResolution().doubleValue();
+		double originX = map.getOriginx() == null ? 0 : map.getOriginx().doubleValue();
+		double originY = map.getOriginy() == null ? 0 : map.getOriginy().doubleValue();
+		return OccupancyGrid.read(new File(map.getImage()), resolution, originX, originY);
+	}
+
+	/**
+	 * Converts settings.xml's {@link Settings.Map.Corner} to {@link Point2D}
 	 * 
 	 * @param corner
-	 * @return pvector
+	 * @return point
+	 */
+	public final static Point2D cornerToPoint(Corner corner) {
+		return new Point2D(corner.x, corner.y);
+	}
+
+	/**
+	 * @return configuration of filter from settings.xml, loaded once
+	 */
+	public final static FilterConfig getConfig() {
+		FilterConfig result = config;
+		if (result == null) {
+			result = FilterConfig.fromSettings(importSettings(settingsPath));
+			config = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Reads settings.xml again. Running filters keep their configuration
+	 * until new one is given to them. Settings are replaced only if they are
+	 * read and give a valid configuration, otherwise error is printed and
+	 * current configuration is kept
+	 * 
+	 * @return new configuration of filter, current one if settings.xml can
+	 *         not be read
+	 */
+	public final static FilterConfig reloadConfig() {
+		FilterConfig current = getConfig();
+		Settings reloaded;
+		FilterConfig result;
+		try {
+			reloaded = SettingsReader.read(new File(settingsPath));
+			result = FilterConfig.fromSettings(reloaded);
+		} catch (IOException e) {
+			e.printStackTrace();
+			return current;
+		} catch (RuntimeException e) {
+			// missing or invalid values of settings
+			e.printStackTrace();
+			return current;
+		}
+
+		settings = reloaded;
+		config = result;
+		return result;
+	}
+
+	/**
+	 * Seed of run. Same seed in settings.xml gives same random draws in every
+	 * run, without it a random seed is chosen once per run. Seed is kept when
+	 * settings are reloaded
+	 * 
+	 * @return seed of {@link RandomStreams}
+	 */
+	public static long getSeed() {
+		Long result = seed;
+		if (result == null) {
+			synchronized (Util.class) {
+				result = seed;
+				if (result == null) {
+					Long value = importSettings(settingsPath).getSeed();
+					result = value == null ? Long.valueOf(new Random().nextLong()) : value;
+					seed = result;
+				}
+			}
+		}
+		return result.longValue();
+	}
+
+	/**
+	 * Gets recorder of viewer runs. A run is recorded into several logs when
+	 * its beams or sensor range are reloaded, every log after first one is
+	 * named &lt;recordfile&gt;.&lt;part&gt;
+	 * 
+	 * @param room
+	 *            {@link Room} of default map
+	 * @param config
+	 *            beams and sensor range of log
+	 * @param part
+	 *            index of log in run, starting from 0
+	 * @return {@link Recorder} writing to recordfile of settings.xml, null
+	 *         if recordfile is not set
+	 * @throws IOException
 	 */
-	public final static PVector cornerToPVector(Corner corner) {
-		return new PVector(corner.x, corner.y);
+	public final static Recorder getRecorder(Room room, FilterConfig config, int part) throws IOException {
+		Settings settingsList = importSettings(settingsPath);
+
+		if (settingsList.getRecordfile() == null) {
+			return null;
+		}
+
+		String path = part == 0 ? settingsList.getRecordfile() : settingsList.getRecordfile() + "." + part;
+		boolean particles = Boolean.TRUE.equals(settingsList.getRecordparticles());
+		boolean quantized = Boolean.TRUE.equals(settingsList.getRecordquantized());
+		return new Recorder(new File(path), room, config.getBeams(), config.getSensorRange(), particles, quantized);
 	}
 
 	/**
-	 * @return sensor range
+	 * Gets metrics of a filter if metrics is enabled in settings.xml. Metrics
+	 * are registered to JMX and printed to standard output every
+	 * metricsinterval seconds if it is set
+	 * 
+	 * @param name
+	 *            name of filter in JMX
+	 * @return {@link FilterMetrics}, null if metrics is not enabled
 	 */
-	public final static double getSensorRange() {
-		if (sensorRange == null) {
-			sensorRange = new Double(importSettings(settingsPath).sensorrange);
+	public final static FilterMetrics getMetrics(String name) {
+		Settings settingsList = importSettings(settingsPath);
+
+		if (!Boolean.TRUE.equals(settingsList.getMetrics())) {
+			return null;
 		}
-		return sensorRange.doubleValue();
+
+		FilterMetrics metrics = new FilterMetrics();
+		try {
+			metrics.register(name);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+		if (settingsList.getMetricsinterval() != null) {
+			metrics.startDump(System.out, 1000L * settingsList.getMetricsinterval().intValue());
+		}
+		return metrics;
 	}
 
 	/**
-	 * @return number of particles
+	 * @return width of viewer window from viewerwidth of settings.xml, 640
+	 *         by default
 	 */
-	public final static int getParticleNum() {
-		if (particleNum == null) {
-			particleNum = new Integer(importSettings(settingsPath).numofparticles);
+	public final static int getViewerWidth() {
+		Integer width = importSettings(settingsPath).getViewerwidth();
+		return width == null ? defaultViewerWidth : width.intValue();
+	}
+
+	/**
+	 * @return height of viewer window from viewerheight of settings.xml, 480
+	 *         by default
+	 */
+	public final static int getViewerHeight() {
+		Integer height = importSettings(settingsPath).getViewerheight();
+		return height == null ? defaultViewerHeight : height.intValue();
+	}
+
+	/**
+	 * Gets renderer of particles of viewer with rendermode and renderpoints
+	 * of settings.xml, every particle is drawn by default
+	 * 
+	 * @param random
+	 *            generator subset of particles is picked with
+	 * @return {@link ParticleRenderer} of viewer size
+	 */
+	public final static ParticleRenderer getParticleRenderer(Random random) {
+		Settings settingsList = importSettings(settingsPath);
+
+		int points = settingsList.getRenderpoints() == null ? defaultRenderPoints : settingsList.getRenderpoints().intValue();
+		ParticleRenderer renderer = new ParticleRenderer(getViewerWidth(), getViewerHeight(), points, random);
+
+		String mode = settingsList.getRendermode();
+		if (mode == null || mode.equals("all")) {
+			renderer.setMode(ParticleRenderer.ALL);
+		} else if (mode.equals("subset")) {
+			renderer.setMode(ParticleRenderer.SUBSET);
+		} else if (mode.equals("heatmap")) {
+			renderer.setMode(ParticleRenderer.HEATMAP);
+		} else {
+			throw new IllegalArgumentException("Unknown rendermode: " + mode);
 		}
-		return particleNum.intValue();
+		return renderer;
 	}
 
 	/**
-	 * @return orientationNoise
+	 * Gets ray caster for default map. If raycastcellsize is set in
+	 * settings.xml, a {@link RayCastTable} is memory mapped from
+	 * &lt;defaultmap&gt;.raycast file, which is computed when missing or
+	 * stale. Otherwise room itself casts rays exactly
+	 * 
+	 * @param room
+	 *            {@link Room} of default map
+	 * @return ray caster
 	 */
-	public static double getOrientNoise() {
-		if (orientNoise == null) {
-			orientNoise = new Double(importSettings(settingsPath).orientationnoise);
+	public final static RayCaster getRayCaster(Room room) {
+		Settings settingsList = importSettings(settingsPath);
+
+		if (settingsList.getRaycastcellsize() == null) {
+			return room;
+		}
+
+		int bins = settingsList.getRaycastbins() == null ? defaultRayCastBins : settingsList.getRaycastbins().intValue();
+		try {
+			return RayCastTable.load(new File(settingsList.getDefaultmap() + ".raycast"), room, settingsList.getRaycastcellsize().doubleValue(), bins, 2 * getConfig().getSensorRange());
+		} catch (IOException e) {
+			e.printStackTrace();
+			return room;
 		}
-		return orientNoise.doubleValue();
 	}
 
 	/**
-	 * @return moveNoise
+	 * Gets likelihood field sensor model of a room if likelihoodcellsize is
+	 * set in settings.xml
+	 * 
+	 * @param room
+	 *            {@link Room} of default map
+	 * @return {@link LikelihoodField}, null for ray casting every beam
 	 */
-	public static double getMoveNoise() {
-		if (moveNoise == null) {
-			moveNoise = new Double(importSettings(settingsPath).movenoise);
+	public final static LikelihoodField getLikelihoodField(Room room) {
+		Settings settingsList = importSettings(settingsPath);
+
+		if (settingsList.getLikelihoodcellsize() == null) {
+			return null;
 		}
-		return moveNoise.doubleValue();
+
+		return LikelihoodField.build(room, settingsList.getLikelihoodcellsize().doubleValue(), likelihoodMaxDistance);
 	}
 
 	/**
-	 * @return sensorNoise
+	 * Gets KLD-sampling of default map. Number of particles adapts between
+	 * minparticles and maxparticles if maxparticles is set in settings.xml,
+	 * otherwise numofparticles is fixed
+	 * 
+	 * @param room
+	 *            {@link Room} of default map
+	 * @return {@link KldSampler}, null for fixed number of particles
 	 */
-	public static double getSensorNoise() {
-		if (sensorNoise == null) {
-			sensorNoise = new Double(importSettings(settingsPath).sensornoise);
+	public final static KldSampler getKldSampler(Room room) {
+		Settings settingsList = importSettings(settingsPath);
+
+		if (settingsList.getMaxparticles() == null) {
+			return null;
 		}
-		return sensorNoise.doubleValue();
+
+		int min = settingsList.getMinparticles() == null ? 1 : settingsList.getMinparticles().intValue();
+		double epsilon = settingsList.getKldepsilon() == null ? defaultKldEpsilon : settingsList.getKldepsilon().doubleValue();
+		return new KldSampler(room, min, settingsList.getMaxparticles().intValue(), epsilon, kldZ, kldBinSize, kldAngleBins);
 	}
 }
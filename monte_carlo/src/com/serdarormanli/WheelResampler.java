@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.Random;
+
+/**
+ * Resampling wheel used by first versions of this project. Wheel is walked
+ * from a fixed start with steps of half of mean weight, random generator is
+ * not used. Kept for comparison with other resamplers.
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class WheelResampler implements Resampler {
+
+	/**
+	 * @see com.serdarormanli.Resampler#resample(double[], int, int[], int,
+	 *      java.util.Random)
+	 */
+	@Override
+	public void resample(double[] weights, int size, int[] indices, int count, Random random) {
+		double incr = 0;
+
+		int index = 0;
+
+		for (int i = 0; i < size; i++) {
+			incr += weights[i];
+		}
+
+		incr = incr / 2.0 / count;
+
+		double beta = incr;
+
+		for (int i = 0; i < count; i++) {
+			while (beta > weights[index]) {
+				beta -= weights[index];
+				index = (index + 1) % size;
+			}
+
+			beta += incr;
+			indices[i] = index;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Checks a seeded {@link ParticleFilter} gives same particles for any number
+ * of threads
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ParticleFilterTest {
+
+	private static final int PARTICLES = 5000;
+	private static final int STEPS = 20;
+
+	private interface Setup {
+		void apply(ParticleFilter filter, Room room);
+	}
+
+	/**
+	 * Steps a filter and copies its particles
+	 */
+	private static ParticleSet run(Room room, FilterConfig config, int threads, long seed, Setup setup) {
+		ParticleFilter filter = new ParticleFilter(room, room, config, threads, seed);
+		try {
+			if (setup != null) {
+				setup.apply(filter, room);
+			}
+			double[] readings = new double[config.getBeams().size()];
+			for (int step = 0; step < STEPS; step++) {
+				for (int i = 0; i < readings.length; i++) {
+					readings[i] = 50 + 10 * i + step;
+				}
+				filter.step(new Odometry(0.05, 3), readings);
+			}
+
+			ParticleSet particles = filter.getParticles();
+			ParticleSet copy = new ParticleSet(particles.size());
+			for (int i = 0; i < particles.size(); i++) {
+				copy.set(i, particles.getX()[i], particles.getY()[i], particles.getOrientation()[i], particles.getWeight()[i]);
+			}
+			return copy;
+		} finally {
+			filter.shutdown();
+		}
+	}
+
+	private static void assertSameParticles(ParticleSet expected, ParticleSet actual) {
+		assertEquals(expected.size(), actual.size());
+		int size = expected.size();
+		assertArrayEquals(Arrays.copyOf(expected.getX(), size), Arrays.copyOf(actual.getX(), size), 0);
+		assertArrayEquals(Arrays.copyOf(expected.getY(), size), Arrays.copyOf(actual.getY(), size), 0);
+		assertArrayEquals(Arrays.copyOf(expected.getOrientation(), size), Arrays.copyOf(actual.getOrientation(), size), 0);
+		assertArrayEquals(Arrays.copyOf(expected.getWeight(), size), Arrays.copyOf(actual.getWeight(), size), 0);
+	}
+
+	private static void assertSameForAnyThreads(FilterConfig config, Setup setup) {
+		Room room = TestMaps.cross();
+		ParticleSet single = run(room, config, 1, 42, setup);
+		for (int threads : new int[] { 2, 4, 7 }) {
+			assertSameParticles(single, run(room, config, threads, 42, setup));
+		}
+	}
+
+	@Test
+	public void sameSeedGivesSameParticlesForAnyThreads() {
+		assertSameForAnyThreads(TestMaps.CONFIG.withParticleNum(PARTICLES), null);
+	}
+
+	@Test
+	public void sameSeedGivesSameParticlesWithoutEveryResampling() {
+		assertSameForAnyThreads(new FilterConfig(100, PARTICLES, 0.5, 5.0, 0.5, 0.5), null);
+	}
+
+	@Test
+	public void sameSeedGivesSameParticlesWithManyBeams() {
+		assertSameForAnyThreads(TestMaps.CONFIG.withParticleNum(PARTICLES).withBeams(BeamSet.uniform(36, Math.PI)).withWeightBeams(12), null);
+	}
+
+	@Test
+	public void sameSeedGivesSameParticlesWithKldSampling() {
+		assertSameForAnyThreads(TestMaps.CONFIG.withParticleNum(PARTICLES), new Setup() {
+			@Override
+			public void apply(ParticleFilter filter, Room room) {
+				filter.setKldSampler(new KldSampler(room, 500, 20000, 0.05, 2.326, 10, 36));
+			}
+		});
+	}
+
+	@Test
+	public void sameSeedGivesSameParticlesWithLikelihoodField() {
+		assertSameForAnyThreads(TestMaps.CONFIG.withParticleNum(PARTICLES), new Setup() {
+			@Override
+			public void apply(ParticleFilter filter, Room room) {
+				filter.setLikelihoodField(LikelihoodField.build(room, 2, 10));
+			}
+		});
+	}
+
+	@Test
+	public void otherSeedGivesOtherParticles() {
+		Room room = TestMaps.cross();
+		FilterConfig config = TestMaps.CONFIG.withParticleNum(PARTICLES);
+		ParticleSet first = run(room, config, 1, 42, null);
+		ParticleSet second = run(room, config, 1, 43, null);
+		assertFalse(Arrays.equals(Arrays.copyOf(first.getX(), first.size()), Arrays.copyOf(second.getX(), second.size())));
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes {@link ParticleLog}s with {@link ParticleLogWriter} and reads them
+ * back with {@link ParticleLogReader}
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ParticleLogTest {
+
+	private static final long[] STEPS = { 0, 2, 5, 6, 40 };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * @return particles of a step, their number differs between steps
+	 */
+	private static ParticleSet particles(Room room, long step) {
+		int size = 100 + (int) step * 37;
+		ParticleSet particles = new ParticleSet(size);
+		Random random = new SplitMixRandom(step);
+		float[] xs = new float[1], ys = new float[1];
+		for (int i = 0; i < size; i++) {
+			room.samplePoint(random, xs, ys, 0);
+			particles.set(i, xs[0], ys[0], (float) ((random.nextDouble() * 2 - 1) * Math.PI), (float) random.nextDouble());
+		}
+		return particles;
+	}
+
+	private static void assertParticles(ParticleSet expected, ParticleSet actual, double precision) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.getX()[i], actual.getX()[i], precision);
+			assertEquals(expected.getY()[i], actual.getY()[i], precision);
+			assertEquals(expected.getOrientation()[i], actual.getOrientation()[i], precision);
+			assertEquals(expected.getWeight()[i], actual.getWeight()[i], 0);
+		}
+	}
+
+	private void roundTrip(int flags, double precision, boolean close) throws IOException {
+		Room room = TestMaps.cross();
+		File file = folder.newFile();
+		ParticleLogWriter writer = new ParticleLogWriter(file, room, flags);
+		for (long step : STEPS) {
+			writer.write(step, particles(room, step));
+		}
+		if (close) {
+			writer.close();
+		} else {
+			// log without index is scanned
+			writer.flush();
+		}
+
+		ParticleLogReader reader = new ParticleLogReader(file);
+		try {
+			assertEquals(STEPS.length, reader.getChunks());
+			assertEquals(flags != 0, reader.isQuantized());
+			ParticleSet particles = new ParticleSet(1);
+			for (int chunk = STEPS.length - 1; chunk >= 0; chunk--) {
+				assertEquals(STEPS[chunk], reader.getStep(chunk));
+				assertEquals(chunk, reader.find(STEPS[chunk]));
+				reader.read(chunk, particles);
+				assertParticles(particles(room, STEPS[chunk]), particles, precision);
+			}
+			assertTrue(reader.find(3) < 0);
+		} finally {
+			reader.close();
+			if (!close) {
+				writer.close();
+			}
+		}
+	}
+
+	@Test
+	public void readsIndexedLogBack() throws IOException {
+		roundTrip(0, 0, true);
+	}
+
+	@Test
+	public void scansLogWithoutIndex() throws IOException {
+		roundTrip(0, 0, false);
+	}
+
+	@Test
+	public void readsQuantizedLogWithinPrecision() throws IOException {
+		// bounds of cross are 620 wide, full circle is 2 pi
+		roundTrip(ParticleLog.QUANTIZED, 620.0 / Character.MAX_VALUE, true);
+	}
+}
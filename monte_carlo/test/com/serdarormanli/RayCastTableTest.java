@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks {@link RayCastTable} is saved and mapped back unchanged and stays
+ * within its precision of exact ray casting
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class RayCastTableTest {
+
+	private static final double CELL_SIZE = 4;
+	private static final int BINS = 72;
+	private static final double RANGE = 200;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static void assertSameTable(RayCastTable expected, RayCastTable actual, Room room) {
+		BeamSet beams = BeamSet.uniform(BINS, 2 * Math.PI);
+		double[] maxRanges = new double[BINS];
+		Arrays.fill(maxRanges, RANGE);
+		double[] expectedRanges = new double[BINS], actualRanges = new double[BINS];
+
+		for (double y = room.getMinY() - 10; y <= room.getMaxY() + 10; y += CELL_SIZE / 2) {
+			for (double x = room.getMinX() - 10; x <= room.getMaxX() + 10; x += CELL_SIZE / 2) {
+				expected.castRays(x, y, 0, beams, maxRanges, 1, expectedRanges, 0);
+				actual.castRays(x, y, 0, beams, maxRanges, 1, actualRanges, 0);
+				for (int i = 0; i < BINS; i++) {
+					assertEquals(expectedRanges[i], actualRanges[i], 0);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void mapsSavedTableUnchanged() throws IOException {
+		Room room = TestMaps.cross();
+		RayCastTable built = RayCastTable.build(room, CELL_SIZE, BINS, RANGE);
+		File file = folder.newFile("cross.raycast");
+		built.save(file);
+
+		RayCastTable mapped = RayCastTable.map(file);
+		assertEquals(RANGE, mapped.getRange(), 0);
+		assertSameTable(built, mapped, room);
+	}
+
+	@Test
+	public void loadRebuildsStaleCache() throws IOException {
+		Room room = TestMaps.cross();
+		File file = new File(folder.getRoot(), "cross.raycast");
+
+		RayCastTable first = RayCastTable.load(file, room, CELL_SIZE, BINS, RANGE);
+		assertSameTable(RayCastTable.build(room, CELL_SIZE, BINS, RANGE), first, room);
+
+		RayCastTable rebuilt = RayCastTable.load(file, room, CELL_SIZE, BINS, 2 * RANGE);
+		assertEquals(2 * RANGE, rebuilt.getRange(), 0);
+		assertEquals(2 * RANGE, RayCastTable.map(file).getRange(), 0);
+	}
+
+	@Test
+	public void staysNearExactRays() {
+		Room room = TestMaps.cross();
+		RayCastTable table = RayCastTable.build(room, CELL_SIZE, 360, RANGE);
+		Random random = new SplitMixRandom(1);
+		float[] xs = new float[1], ys = new float[1];
+
+		for (int i = 0; i < 5000; i++) {
+			room.samplePoint(random, xs, ys, 0);
+			// start of ray and direction are snapped to cell and bin
+			double x = room.getMinX() + Math.round((xs[0] - room.getMinX()) / CELL_SIZE) * CELL_SIZE;
+			double y = room.getMinY() + Math.round((ys[0] - room.getMinY()) / CELL_SIZE) * CELL_SIZE;
+			double angle = Math.toRadians(random.nextInt(360));
+
+			double exact = room.castRay(x, y, angle, RANGE);
+			double cached = table.castRay(x, y, angle, RANGE);
+			if (Double.isInfinite(exact)) {
+				assertTrue(Double.isInfinite(cached));
+			} else {
+				assertEquals(exact, cached, RANGE / Character.MAX_VALUE);
+			}
+		}
+	}
+
+	@Test
+	public void raysFromOutsideMiss() {
+		Room room = TestMaps.cross();
+		RayCastTable table = RayCastTable.build(room, CELL_SIZE, BINS, RANGE);
+		double x = room.getMinX() - 50, y = room.getMinY() - 50;
+
+		assertTrue(Double.isInfinite(table.castRay(x, y, Math.PI / 4, RANGE)));
+
+		double[] maxRanges = { RANGE, RANGE, RANGE };
+		double[] ranges = new double[3];
+		table.castRays(x, y, 0, BeamSet.DEFAULT, maxRanges, 1, ranges, 0);
+		for (double range : ranges) {
+			assertTrue(Double.isInfinite(range));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsTableTooLargeToMap() {
+		RayCastTable.build(TestMaps.cross(), 0.01, 3600, RANGE);
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks every {@link Resampler} picks as many valid indices as asked, never
+ * picks particles without weight and picks particles in proportion to their
+ * weights
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class ResamplerTest {
+
+	private static Resampler[] resamplers() {
+		return new Resampler[] { new MultinomialResampler(), new ResidualResampler(), new StratifiedResampler(), new SystematicResampler(), new WheelResampler() };
+	}
+
+	/**
+	 * @param size
+	 * @param random
+	 * @return unnormalized random weights, every third particle between first
+	 *         and last has no weight
+	 */
+	private static double[] weights(int size, Random random) {
+		double[] weights = new double[size];
+		for (int i = 0; i < size; i++) {
+			weights[i] = i > 0 && i < size - 1 && i % 3 == 0 ? 0 : 0.1 + random.nextDouble();
+		}
+		return weights;
+	}
+
+	private static int[] copies(int[] indices, int count, int size) {
+		int[] copies = new int[size];
+		for (int i = 0; i < count; i++) {
+			copies[indices[i]]++;
+		}
+		return copies;
+	}
+
+	@Test
+	public void picksRequestedNumberOfValidIndices() {
+		Random random = new SplitMixRandom(1);
+		for (Resampler resampler : resamplers()) {
+			for (int count : new int[] { 1, 7, 100, 1000 }) {
+				double[] weights = weights(100, random);
+				int[] indices = new int[count + 10];
+				Arrays.fill(indices, -1);
+
+				resampler.resample(weights, 100, indices, count, random);
+
+				String name = resampler.getClass().getSimpleName();
+				for (int i = 0; i < count; i++) {
+					assertTrue(name + " picked index " + indices[i], indices[i] >= 0 && indices[i] < 100);
+					assertTrue(name + " picked particle without weight", weights[indices[i]] > 0);
+				}
+				for (int i = count; i < indices.length; i++) {
+					assertEquals(name + " wrote beyond count", -1, indices[i]);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void picksOnlyParticleWithWeight() {
+		Random random = new SplitMixRandom(2);
+		double[] weights = new double[50];
+		weights[17] = 3;
+		for (Resampler resampler : resamplers()) {
+			int[] indices = new int[50];
+			resampler.resample(weights, 50, indices, 50, random);
+			for (int index : indices) {
+				assertEquals(resampler.getClass().getSimpleName(), 17, index);
+			}
+		}
+	}
+
+	@Test
+	public void deterministicResamplersKeepCopiesNearExpected() {
+		Random random = new SplitMixRandom(3);
+		double[] weights = weights(200, random);
+		double total = 0;
+		for (double weight : weights) {
+			total += weight;
+		}
+
+		int count = 1000;
+		int[] indices = new int[count];
+
+		new SystematicResampler().resample(weights, 200, indices, count, random);
+		int[] copies = copies(indices, count, 200);
+		for (int i = 0; i < 200; i++) {
+			double expected = count * weights[i] / total;
+			assertTrue("systematic copies of " + i, Math.abs(copies[i] - expected) < 1 + 1e-9);
+		}
+
+		new ResidualResampler().resample(weights, 200, indices, count, random);
+		copies = copies(indices, count, 200);
+		for (int i = 0; i < 200; i++) {
+			assertTrue("residual copies of " + i, copies[i] >= (int) (count * weights[i] / total));
+		}
+
+		new StratifiedResampler().resample(weights, 200, indices, count, random);
+		copies = copies(indices, count, 200);
+		for (int i = 0; i < 200; i++) {
+			double expected = count * weights[i] / total;
+			assertTrue("stratified copies of " + i, Math.abs(copies[i] - expected) < 2);
+		}
+	}
+
+	@Test
+	public void picksInProportionToWeights() {
+		Random random = new SplitMixRandom(4);
+		double[] weights = { 1, 2, 3, 4, 0, 10 };
+		int count = 200000;
+		int[] indices = new int[count];
+
+		for (Resampler resampler : resamplers()) {
+			if (resampler instanceof WheelResampler) {
+				// wheel walks only half of total weight
+				continue;
+			}
+			resampler.resample(weights, weights.length, indices, count, random);
+			int[] copies = copies(indices, count, weights.length);
+			for (int i = 0; i < weights.length; i++) {
+				double expected = weights[i] / 20;
+				assertEquals(resampler.getClass().getSimpleName() + " share of " + i, expected, copies[i] / (double) count, 0.01);
+			}
+		}
+	}
+}
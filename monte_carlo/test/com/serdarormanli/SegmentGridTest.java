@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares ray casting of {@link SegmentGrid} through {@link Room} with
+ * intersecting ray with every wall
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class SegmentGridTest {
+
+	private static final double EPSILON = 1e-6;
+
+	/**
+	 * Intersects ray with every wall of room
+	 */
+	private static double bruteForce(Room room, double x, double y, double angle, double maxRange) {
+		double dx = Math.cos(angle), dy = Math.sin(angle);
+		double[] x1 = room.getWallX1(), y1 = room.getWallY1(), x2 = room.getWallX2(), y2 = room.getWallY2();
+		double nearest = Double.POSITIVE_INFINITY;
+
+		for (int i = 0; i < x1.length; i++) {
+			double ex = x2[i] - x1[i], ey = y2[i] - y1[i];
+			double denominator = dx * ey - dy * ex;
+			if (denominator == 0) {
+				continue;
+			}
+			double ax = x1[i] - x, ay = y1[i] - y;
+			double t = (ax * ey - ay * ex) / denominator;
+			double u = (ax * dy - ay * dx) / denominator;
+			if (t >= 0 && u >= 0 && u <= 1 && t < nearest) {
+				nearest = t;
+			}
+		}
+		return nearest <= maxRange ? nearest : Double.POSITIVE_INFINITY;
+	}
+
+	private static void assertSameRange(String message, double expected, double actual) {
+		if (Double.isInfinite(expected)) {
+			assertTrue(message + " expected miss but was " + actual, Double.isInfinite(actual));
+		} else {
+			assertEquals(message, expected, actual, EPSILON * Math.max(1, expected));
+		}
+	}
+
+	private static void compare(Room room, long seed, int rays) {
+		Random random = new SplitMixRandom(seed);
+		float[] xs = new float[1], ys = new float[1];
+		for (int i = 0; i < rays; i++) {
+			room.samplePoint(random, xs, ys, 0);
+			double angle = (random.nextDouble() * 2 - 1) * Math.PI;
+			double maxRange = 1 + random.nextDouble() * 300;
+			assertSameRange("ray " + i, bruteForce(room, xs[0], ys[0], angle, maxRange), room.castRay(xs[0], ys[0], angle, maxRange));
+		}
+	}
+
+	@Test
+	public void matchesBruteForceInCross() {
+		compare(TestMaps.cross(), 1, 20000);
+	}
+
+	@Test
+	public void matchesBruteForceAmongPillars() {
+		compare(TestMaps.hall(12), 2, 20000);
+	}
+
+	@Test
+	public void batchMatchesSingleRays() {
+		Room room = TestMaps.hall(8);
+		BeamSet beams = BeamSet.uniform(90, 1.5 * Math.PI);
+		double[] maxRanges = new double[beams.size()];
+		double[] ranges = new double[beams.size() + 1];
+		Random random = new SplitMixRandom(3);
+		float[] xs = new float[1], ys = new float[1];
+
+		for (int i = 0; i < 1000; i++) {
+			room.samplePoint(random, xs, ys, 0);
+			double heading = (random.nextDouble() * 2 - 1) * Math.PI;
+			for (int j = 0; j < maxRanges.length; j++) {
+				maxRanges[j] = 10 + random.nextDouble() * 200;
+			}
+			int stride = 1 + i % 4;
+
+			room.castRays(xs[0], ys[0], heading, beams, maxRanges, stride, ranges, 1);
+			for (int j = 0, k = 1; j < beams.size(); j += stride, k++) {
+				assertSameRange("beam " + j, bruteForce(room, xs[0], ys[0], heading + beams.getAngle(j), maxRanges[j]), ranges[k]);
+			}
+		}
+	}
+
+	@Test
+	public void missesBeyondMaxRange() {
+		Room room = TestMaps.cross();
+		// right arm of cross ends at 630
+		assertEquals(310, room.castRay(320, 240, 0, 1000), EPSILON);
+		assertTrue(Double.isInfinite(room.castRay(320, 240, 0, 309)));
+	}
+}
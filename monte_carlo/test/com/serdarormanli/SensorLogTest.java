@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Writes {@link SensorLog}s with {@link SensorLogWriter} and reads them back
+ * with {@link SensorLogReader}
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+public class SensorLogTest {
+
+	private static final double RANGE = 100;
+	private static final double[] ANGLES = { -Math.PI / 2, 0, Math.PI / 2, Math.PI };
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static double[] readings(int step) {
+		double[] readings = new double[ANGLES.length];
+		for (int i = 0; i < readings.length; i++) {
+			// misses are reported a little beyond sensor range
+			readings[i] = (step * 7 + i * 13) % 110 + 0.25;
+		}
+		return readings;
+	}
+
+	private static void write(SensorLogWriter writer, int from, int to) throws IOException {
+		for (int step = from; step < to; step++) {
+			writer.write(new Odometry(0.01 * step, step), step, 2 * step, -0.5, readings(step));
+		}
+	}
+
+	private static void assertStep(SensorLogReader reader, int step, double precision) {
+		assertEquals(step, reader.getStep());
+		assertEquals(0.01 * step, reader.getRotation(), 1e-5);
+		assertEquals(step, reader.getDistance(), 0);
+		assertEquals(step, reader.getX(), 0);
+		assertEquals(2 * step, reader.getY(), 0);
+		assertEquals(-0.5, reader.getOrientation(), 0);
+		assertArrayEquals(readings(step), reader.getReadings(new double[ANGLES.length]), precision);
+	}
+
+	private void roundTrip(int flags, double precision) throws IOException {
+		File file = folder.newFile();
+		SensorLogWriter writer = new SensorLogWriter(file, ANGLES, RANGE, flags);
+		// more steps than fit into buffer of writer
+		write(writer, 0, 5000);
+		writer.close();
+
+		SensorLogReader reader = new SensorLogReader(file);
+		try {
+			assertEquals(5000, reader.getSteps());
+			assertEquals(ANGLES.length, reader.getBeams());
+			assertEquals(RANGE, reader.getSensorRange(), 0);
+			assertArrayEquals(ANGLES, reader.getBeamAngles(), 0);
+			assertEquals(flags != 0, reader.isQuantized());
+
+			for (int step = 0; step < 5000; step++) {
+				assertTrue(reader.next());
+				assertStep(reader, step, precision);
+			}
+			assertFalse(reader.next());
+
+			reader.seek(4321);
+			assertTrue(reader.next());
+			assertStep(reader, 4321, precision);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void readsFloatReadingsBack() throws IOException {
+		roundTrip(0, 1e-5);
+	}
+
+	@Test
+	public void readsQuantizedReadingsWithinPrecision() throws IOException {
+		roundTrip(SensorLog.QUANTIZED, 3 * RANGE / Character.MAX_VALUE);
+	}
+
+	@Test
+	public void readsStepsFlushedAfterOpening() throws IOException {
+		File file = folder.newFile();
+		SensorLogWriter writer = new SensorLogWriter(file, ANGLES, RANGE);
+		write(writer, 0, 10);
+		writer.flush();
+
+		SensorLogReader reader = new SensorLogReader(file);
+		try {
+			for (int step = 0; step < 10; step++) {
+				assertTrue(reader.next());
+			}
+			assertFalse(reader.next());
+
+			write(writer, 10, 25);
+			writer.close();
+
+			for (int step = 10; step < 25; step++) {
+				assertTrue(reader.next());
+				assertStep(reader, step, 1e-5);
+			}
+			assertFalse(reader.next());
+			assertEquals(25, reader.getSteps());
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void rejectsCorruptHeader() throws IOException {
+		for (int beams : new int[] { -1, 0, 1 << 30 }) {
+			File file = folder.newFile();
+			ByteBuffer header = ByteBuffer.allocate(SensorLog.FIXED_HEADER_SIZE + 8).order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(SensorLog.MAGIC).putInt(SensorLog.VERSION).putInt(0).putInt(beams).putDouble(RANGE);
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(header.array());
+			out.close();
+
+			try {
+				new SensorLogReader(file).close();
+				fail("Header with " + beams + " beams was accepted");
+			} catch (IOException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void rejectsReadingsOfOtherBeams() throws IOException {
+		SensorLogWriter writer = new SensorLogWriter(folder.newFile(), ANGLES, RANGE);
+		try {
+			writer.write(new Odometry(0, 1), 0, 0, 0, new double[ANGLES.length + 1]);
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Serdar Ormanlı.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Public License v2.0
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/gpl-2.0.html
+ * 
+ * Contributors:
+ *     Serdar Ormanlı - initial API and implementation
+ ******************************************************************************/
+package com.serdarormanli;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import math.geom2d.Point2D;
+
+/**
+ * Maps used by tests, built in code so tests do not need settings.xml
+ * 
+ * @author Serdar Ormanlı
+ * 
+ */
+final class TestMaps {
+
+	/** sensor range and noise like those of settings.xml */
+	static final FilterConfig CONFIG = new FilterConfig(100, 500, 0.5, 5.0, 0.5);
+
+	private TestMaps() {
+	}
+
+	/**
+	 * @return cross shaped room of map3 of settings.xml
+	 */
+	static Room cross() {
+		return new Room(Arrays.asList(new Point2D(200, 40), new Point2D(440, 40), new Point2D(440, 160), new Point2D(630, 160), new Point2D(630, 320), new Point2D(440, 320), new Point2D(440, 440), new Point2D(200, 440), new Point2D(200, 320), new Point2D(10, 320),
+				new Point2D(10, 160), new Point2D(200, 160)));
+	}
+
+	/**
+	 * @param pillars
+	 *            number of pillars per row and column
+	 * @return square hall with a grid of square pillars, each a polygon of its
+	 *         own
+	 */
+	static Room hall(int pillars) {
+		double pitch = 30;
+		double size = pitch * (pillars + 1);
+		List<List<Point2D>> polygons = new ArrayList<List<Point2D>>();
+		for (int i = 1; i <= pillars; i++) {
+			for (int j = 1; j <= pillars; j++) {
+				polygons.add(rectangle(i * pitch - 5, j * pitch - 5, i * pitch + 5, j * pitch + 5));
+			}
+		}
+		return new Room(rectangle(0, 0, size, size), polygons, 0);
+	}
+
+	private static List<Point2D> rectangle(double x1, double y1, double x2, double y2) {
+		return Arrays.asList(new Point2D(x1, y1), new Point2D(x2, y1), new Point2D(x2, y2), new Point2D(x1, y2));
+	}
+}